@@ -0,0 +1,58 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.batch;
+
+public class BatchResult {
+
+	private String fileName;
+	private double wallSeconds;
+	private long steps;
+	private Throwable failure;
+
+	public BatchResult(String fileName, double wallSeconds, long steps, Throwable failure) {
+		this.fileName = fileName;
+		this.wallSeconds = wallSeconds;
+		this.steps = steps;
+		this.failure = failure;
+	}
+
+	public String fileName() {
+		return fileName;
+	}
+
+	public double wallSeconds() {
+		return wallSeconds;
+	}
+
+	public long steps() {
+		return steps;
+	}
+
+	public double stepsPerSecond() {
+		return wallSeconds > 0 ? steps / wallSeconds : 0;
+	}
+
+	public boolean succeeded() {
+		return failure == null;
+	}
+
+	public Throwable failure() {
+		return failure;
+	}
+
+}
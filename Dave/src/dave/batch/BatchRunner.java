@@ -0,0 +1,184 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.batch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import dave.hydronic.DynamicLiquidNode;
+import dave.hydronic.HydronicFactory;
+import dave.hydronic.Instrumentation;
+import dave.hydronic.EndOfRun;
+import willie.core.ObjectFactory;
+import willie.core.Project;
+import willie.core.WillieObject;
+
+// Runs a directory of .in files, or the files listed in a manifest, on a bounded pool inside
+// one JVM, each with its own Project and factories, and prints the timings.
+public class BatchRunner {
+
+	private int threads;
+
+	public BatchRunner(int threads) {
+		this.threads = threads;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 1) {
+			System.out.println("USAGE: BatchRunner <directory or manifest> [threads]");
+			return;
+		}
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		BatchRunner runner = new BatchRunner(threads);
+		long start = System.nanoTime();
+		ArrayList<BatchResult> results = runner.run(inputFiles(new File(args[0])));
+		printSummary(results, (System.nanoTime() - start) / 1.0E9);
+	}
+
+	public static ArrayList<String> inputFiles(File source) throws IOException {
+		ArrayList<String> fileNames = new ArrayList<String>();
+		if (source.isDirectory()) {
+			File[] files = source.listFiles();
+			Arrays.sort(files);
+			for (File file : files) {
+				if (file.isFile() && file.getName().endsWith(".in")) {
+					fileNames.add(file.getPath());
+				}
+			}
+		} else {
+			BufferedReader reader = new BufferedReader(new FileReader(source));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					line = line.trim();
+					if (line.length() > 0 && !line.startsWith("#")) {
+						fileNames.add(line);
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		return fileNames;
+	}
+
+	public ArrayList<BatchResult> run(ArrayList<String> fileNames) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			ArrayList<Future<BatchResult>> futures = new ArrayList<Future<BatchResult>>();
+			for (final String fileName : fileNames) {
+				futures.add(executor.submit(new Callable<BatchResult>() {
+					@Override
+					public BatchResult call() {
+						return runFile(fileName);
+					}
+				}));
+			}
+			ArrayList<BatchResult> results = new ArrayList<BatchResult>();
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					results.add(futures.get(i).get());
+				} catch (ExecutionException e) {
+					results.add(new BatchResult(fileNames.get(i), 0, 0, e.getCause()));
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public static BatchResult runFile(String fileName) {
+		ArrayList<ObjectFactory> modelFactories = new ArrayList<ObjectFactory>();
+		modelFactories.add(new HydronicFactory());
+		return runFile(fileName, modelFactories);
+	}
+
+	public static BatchResult runFile(String fileName, ArrayList<ObjectFactory> modelFactories) {
+		return runFile(fileName, new RecordingFactory(modelFactories));
+	}
+
+	// The factory keeps the objects of the run, so they can be read once it has finished.
+	public static BatchResult runFile(String fileName, RecordingFactory factory) {
+		ArrayList<ObjectFactory> factories = new ArrayList<ObjectFactory>();
+		factories.add(factory);
+
+		if (Instrumentation.ENABLED) {
+			Instrumentation.startRun();
+		}
+		long start = System.nanoTime();
+		Throwable failure = null;
+		try {
+			Project project = new Project(factories);
+			project.simulate(fileName);
+		} catch (Exception e) {
+			failure = e;
+		} finally {
+			try {
+				EndOfRun.endRun(factory.objects(), failure == null);
+			} catch (RuntimeException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		double wallSeconds = (System.nanoTime() - start) / 1.0E9;
+		if (Instrumentation.ENABLED) {
+			Instrumentation.printSummary(fileName);
+		}
+		return new BatchResult(fileName, wallSeconds, steps(factory.objects()), failure);
+	}
+
+	// Every dynamic node commits its state once per step.
+	private static long steps(ArrayList<WillieObject> objects) {
+		long steps = 0;
+		for (WillieObject object : objects) {
+			if (object instanceof DynamicLiquidNode) {
+				steps = Math.max(steps, ((DynamicLiquidNode) object).steps());
+			}
+		}
+		return steps;
+	}
+
+	public static void printSummary(ArrayList<BatchResult> results, double wallSeconds) {
+		System.out.println(String.format("%-40s %-8s %12s %12s %12s", "File", "Status", "Wall [s]", "Steps", "Steps/s"));
+		long totalSteps = 0;
+		int failures = 0;
+		for (BatchResult result : results) {
+			System.out.println(String.format("%-40s %-8s %12.3f %12d %12.1f", result.fileName(), result.succeeded() ? "OK" : "FAILED",
+					result.wallSeconds(), result.steps(), result.stepsPerSecond()));
+			if (!result.succeeded()) {
+				System.out.println("    " + result.failure());
+				failures++;
+			}
+			totalSteps += result.steps();
+		}
+		System.out.println(String.format("%d runs, %d failed, %.3f s wall, %.1f steps/s overall", results.size(), failures, wallSeconds,
+				wallSeconds > 0 ? totalSteps / wallSeconds : 0));
+	}
+
+}
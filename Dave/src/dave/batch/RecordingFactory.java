@@ -0,0 +1,57 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.batch;
+
+import java.util.ArrayList;
+
+import willie.core.ObjectFactory;
+import willie.core.WillieObject;
+
+// Passes every request on to the wrapped factories and keeps the objects they create so
+// a run can be inspected once it has finished.
+public class RecordingFactory implements ObjectFactory {
+
+	private ArrayList<ObjectFactory> factories;
+	private ArrayList<WillieObject> objects;
+
+	public RecordingFactory(ArrayList<ObjectFactory> factories) {
+		this.factories = factories;
+		objects = new ArrayList<WillieObject>();
+	}
+
+	@Override
+	public WillieObject create(String type, String name) {
+		for (ObjectFactory factory : factories) {
+			WillieObject object = factory.create(type, name);
+			if (object != null) {
+				synchronized (objects) {
+					objects.add(object);
+				}
+				return object;
+			}
+		}
+		return null;
+	}
+
+	public ArrayList<WillieObject> objects() {
+		synchronized (objects) {
+			return new ArrayList<WillieObject>(objects);
+		}
+	}
+
+}
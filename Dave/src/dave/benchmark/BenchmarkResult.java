@@ -0,0 +1,59 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.benchmark;
+
+public class BenchmarkResult {
+
+	private String name;
+	private double operationsPerSecond;
+	private double bestOperationsPerSecond;
+	private double bytesPerOperation;
+	private double allocationRate;
+
+	public BenchmarkResult(String name, double operationsPerSecond, double bestOperationsPerSecond, double bytesPerOperation,
+			double allocationRate) {
+		this.name = name;
+		this.operationsPerSecond = operationsPerSecond;
+		this.bestOperationsPerSecond = bestOperationsPerSecond;
+		this.bytesPerOperation = bytesPerOperation;
+		this.allocationRate = allocationRate;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public double operationsPerSecond() {
+		return operationsPerSecond;
+	}
+
+	public double bestOperationsPerSecond() {
+		return bestOperationsPerSecond;
+	}
+
+	// Bytes allocated per operation on the benchmark thread, NaN when the JVM cannot tell.
+	public double bytesPerOperation() {
+		return bytesPerOperation;
+	}
+
+	// Bytes per second.
+	public double allocationRate() {
+		return allocationRate;
+	}
+
+}
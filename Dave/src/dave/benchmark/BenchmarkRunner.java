@@ -0,0 +1,140 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.function.DoubleSupplier;
+
+// A small dependency free benchmark harness: every benchmark is warmed up, then timed over
+// a number of rounds and reported as operations per second and bytes allocated per operation.
+public class BenchmarkRunner {
+
+	private long warmupMillis;
+	private long measurementMillis;
+	private int rounds;
+	private ArrayList<String> names;
+	private ArrayList<DoubleSupplier> benchmarks;
+	private double sink;
+
+	public BenchmarkRunner(long warmupMillis, long measurementMillis, int rounds) {
+		this.warmupMillis = warmupMillis;
+		this.measurementMillis = measurementMillis;
+		this.rounds = rounds;
+		names = new ArrayList<String>();
+		benchmarks = new ArrayList<DoubleSupplier>();
+	}
+
+	// The value returned by every operation is consumed so the work cannot be eliminated.
+	public void add(String name, DoubleSupplier benchmark) {
+		names.add(name);
+		benchmarks.add(benchmark);
+	}
+
+	public ArrayList<BenchmarkResult> run(String filter) {
+		ArrayList<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+		for (int i = 0; i < benchmarks.size(); i++) {
+			if (filter == null || names.get(i).contains(filter)) {
+				results.add(measure(names.get(i), benchmarks.get(i)));
+			}
+		}
+		return results;
+	}
+
+	private BenchmarkResult measure(String name, DoubleSupplier benchmark) {
+		long batch = 1;
+		long warmupEnd = System.nanoTime() + warmupMillis * 1000000;
+		while (System.nanoTime() < warmupEnd) {
+			long start = System.nanoTime();
+			runBatch(benchmark, batch);
+			if (System.nanoTime() - start < 10000000) {
+				batch *= 2;
+			}
+		}
+
+		double bestOpsPerSecond = 0;
+		double totalOperations = 0;
+		double totalSeconds = 0;
+		long allocatedBefore = allocatedBytes();
+		for (int round = 0; round < rounds; round++) {
+			long operations = 0;
+			long start = System.nanoTime();
+			long end = start + measurementMillis * 1000000;
+			long now = start;
+			while (now < end) {
+				runBatch(benchmark, batch);
+				operations += batch;
+				now = System.nanoTime();
+			}
+			double seconds = (now - start) / 1.0E9;
+			bestOpsPerSecond = Math.max(bestOpsPerSecond, operations / seconds);
+			totalOperations += operations;
+			totalSeconds += seconds;
+		}
+		long allocatedAfter = allocatedBytes();
+		double bytesPerOperation = allocatedBefore < 0 ? Double.NaN : (allocatedAfter - allocatedBefore) / totalOperations;
+		return new BenchmarkResult(name, totalOperations / totalSeconds, bestOpsPerSecond, bytesPerOperation,
+				bytesPerOperation * totalOperations / totalSeconds);
+	}
+
+	private void runBatch(DoubleSupplier benchmark, long batch) {
+		double sum = 0;
+		for (long i = 0; i < batch; i++) {
+			sum += benchmark.getAsDouble();
+		}
+		sink += sum;
+	}
+
+	public double sink() {
+		return sink;
+	}
+
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean hotspotThreads = (com.sun.management.ThreadMXBean) threads;
+			if (hotspotThreads.isThreadAllocatedMemorySupported() && hotspotThreads.isThreadAllocatedMemoryEnabled()) {
+				return hotspotThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	public static void print(ArrayList<BenchmarkResult> results) {
+		System.out.println(String.format("%-48s %14s %14s %12s %12s %12s", "Benchmark", "Ops/s", "Best Ops/s", "ns/op", "B/op", "Alloc MB/s"));
+		for (BenchmarkResult result : results) {
+			System.out.println(String.format("%-48s %14.1f %14.1f %12.2f %12.2f %12.2f", result.name(), result.operationsPerSecond(),
+					result.bestOperationsPerSecond(), 1.0E9 / result.operationsPerSecond(), result.bytesPerOperation(),
+					result.allocationRate() / 1.0E6));
+		}
+	}
+
+	// Arguments: [filter] [warmup ms] [measurement ms] [rounds]
+	public static void main(String[] args) {
+		String filter = args.length > 0 ? args[0] : null;
+		long warmupMillis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+		long measurementMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+		int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+		BenchmarkRunner runner = new BenchmarkRunner(warmupMillis, measurementMillis, rounds);
+		ElementBenchmarks.addTo(runner);
+		PlantBenchmarks.addTo(runner);
+		print(runner.run(filter));
+	}
+
+}
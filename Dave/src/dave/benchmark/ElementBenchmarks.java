@@ -0,0 +1,137 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.benchmark;
+
+import dave.hydronic.ConstantPressureLiquidNode;
+import dave.hydronic.LiquidElement;
+import dave.hydronic.VariableLiquidNode;
+import dave.model.Model;
+import dave.model.ModelObjectData;
+import willie.core.ElectricConsumer;
+
+// One benchmark per element method between fixed pressure nodes, and one per node step.
+// The element cache is dropped before every call so the full evaluation is measured.
+public class ElementBenchmarks {
+
+	public static void addTo(BenchmarkRunner runner) {
+		Model model = Model.hydronicModel(1.0 / 3600, 65);
+		model.add("Constant Liquid Node", "Supply").put("Pressure", 40.0).put("Temperature", 45.0);
+		model.add("Constant Liquid Node", "Return").put("Pressure", 20.0).put("Temperature", 55.0);
+		model.add("Constant Liquid Node", "Hot Supply").put("Pressure", 40.0).put("Temperature", 140.0);
+		model.add("Constant Liquid Node", "Hot Return").put("Pressure", 20.0).put("Temperature", 120.0);
+		model.add("Constant Controller", "Controller").put("Output", 0.8);
+		model.add("Constant Load", "Load").put("Sensible Load", 200000.0).put("Latent Load", 20000.0);
+
+		element(model, "Pipe", "Supply", "Return").put("UA", 10.0).put("Environment Temperature", 75.0);
+		element(model, "Pipe", "Glycol Pipe", "Supply", "Return").put("UA", 10.0).put("Environment Temperature", 75.0);
+		model.add("Fluid Loop", "Glycol Loop").put("Fluid", "Propylene Glycol 30%").put("Elements", "Glycol Pipe");
+		element(model, "Two Way Valve", "Supply", "Return").put("Controller", "Controller");
+		element(model, "A Port", "Supply", "Return").put("Controller", "Controller");
+		element(model, "B Port", "Supply", "Return").put("Controller", "Controller");
+		element(model, "Coil", "Supply", "Return").put("Nominal Capacity", 300000.0).put("Load", "Load");
+		element(model, "Heat Sink", "Supply", "Return").put("Nominal DT", 10.0).put("Controller", "Controller");
+		element(model, "Pump", "Return", "Supply").put("Nominal Head", 60.0).put("Nominal Efficiency", 0.7)
+				.put("Motor Efficiency", 0.9).put("Controller", "Controller");
+		element(model, "Cooling Tower", "Hot Supply", "Hot Return").put("Design Wetbulb", 78.0).put("Design Approach", 7.0)
+				.put("Design Range", 10.0).put("Fan Off Flow Pct", 0.1).put("Design Fan Power", 15.0)
+				.put("Nominal Friction Head", 5.0).put("Static Head", 10.0).put("Controller", "Controller");
+		model.add("Heat Exchanger", "Heat Exchanger").put("Arrangement", "Counter").put("Nominal Capacity", 500000.0)
+				.put("Nominal Inlet DT", 20.0).put("Nominal Outlet DT", 10.0).put("Side 1", "Cold Side").put("Side 2", "Hot Side");
+		element(model, "Exchanger Side", "Cold Side", "Supply", "Return").put("Heat Exchanger", "Heat Exchanger");
+		element(model, "Exchanger Side", "Hot Side", "Hot Supply", "Hot Return").put("Heat Exchanger", "Heat Exchanger");
+		model.add("Biquadratic Curve", "Capacity Curve").put("Coefficients", 0.26, 0.03, 0.0, 0.001, -0.0001, 0.0);
+		model.add("Biquadratic Curve", "EIR Curve").put("Coefficients", 0.9, -0.01, 0.0003, 0.0006, 0.0001, -0.0002);
+		element(model, "Evaporator", "Supply", "Return");
+		element(model, "Condenser", "Hot Supply", "Hot Return");
+		model.add("Chiller", "Chiller").put("Nominal Capacity", 100.0).put("Nominal Efficiency", 0.6)
+				.put("Capacity f(CHW,ECT)", "Capacity Curve").put("EIR f(CHW,ECT)", "EIR Curve").put("EIR f(PLR,DT)", "EIR Curve")
+				.put("Controller", "Controller").put("Evaporator", "Evaporator").put("Condenser", "Condenser");
+
+		model.add("Variable Liquid Node", "Node").put("Initial Pressure", 30.0).put("Initial Temperature", 50.0).put("Alpha", 0.5);
+		model.add("Constant Pressure Liquid Node", "Tank").put("Pressure", 30.0).put("Initial Temperature", 50.0);
+		element(model, "Pipe", "Node Inlet", "Supply", "Node").put("UA", 10.0).put("Environment Temperature", 75.0);
+		element(model, "Pipe", "Node Outlet", "Node", "Return").put("UA", 10.0).put("Environment Temperature", 75.0);
+		element(model, "Pipe", "Tank Inlet", "Supply", "Tank").put("UA", 10.0).put("Environment Temperature", 75.0);
+		element(model, "Pipe", "Tank Outlet", "Tank", "Return").put("UA", 10.0).put("Environment Temperature", 75.0);
+		model.read();
+
+		String[] elements = { "Pipe", "Glycol Pipe", "Two Way Valve", "A Port", "B Port", "Coil", "Heat Sink", "Pump", "Cooling Tower",
+				"Cold Side", "Evaporator", "Condenser" };
+		for (String name : elements) {
+			addElement(runner, name, (LiquidElement) model.get(name));
+		}
+		addElectricConsumer(runner, "Pump", model);
+		addElectricConsumer(runner, "Cooling Tower", model);
+		final ElectricConsumer chiller = (ElectricConsumer) model.get("Chiller");
+		final LiquidElement evaporator = (LiquidElement) model.get("Evaporator");
+		final LiquidElement condenser = (LiquidElement) model.get("Condenser");
+		runner.add("Chiller.electricPower", () -> {
+			evaporator.invalidate();
+			condenser.invalidate();
+			return chiller.electricPower();
+		});
+
+		final VariableLiquidNode node = (VariableLiquidNode) model.get("Node");
+		runner.add("Variable Liquid Node.step", () -> {
+			node.simulateStep1();
+			node.processPostStep();
+			return node.temperature();
+		});
+		final ConstantPressureLiquidNode tank = (ConstantPressureLiquidNode) model.get("Tank");
+		runner.add("Constant Pressure Liquid Node.step", () -> {
+			tank.simulateStep1();
+			tank.processPostStep();
+			return tank.temperature();
+		});
+	}
+
+	private static ModelObjectData element(Model model, String type, String inletNode, String outletNode) {
+		return element(model, type, type, inletNode, outletNode);
+	}
+
+	private static ModelObjectData element(Model model, String type, String name, String inletNode, String outletNode) {
+		return model.add(type, name).put("Inlet Node", inletNode).put("Outlet Node", outletNode).put("Nominal Flow", 100.0)
+				.put("Nominal Pressure Drop", 10.0).put("Pressure Exponent", 2.0);
+	}
+
+	private static void addElement(BenchmarkRunner runner, String name, final LiquidElement element) {
+		runner.add(name + ".volumetricFlow", () -> {
+			element.invalidate();
+			return element.volumetricFlow();
+		});
+		runner.add(name + ".heatGain", () -> {
+			element.invalidate();
+			return element.heatGain();
+		});
+		runner.add(name + ".heatAdvection", () -> {
+			element.invalidate();
+			return element.heatAdvection();
+		});
+		runner.add(name + ".dFlowDPressureDrop", element::dFlowDPressureDrop);
+	}
+
+	private static void addElectricConsumer(BenchmarkRunner runner, String name, Model model) {
+		final LiquidElement element = (LiquidElement) model.get(name);
+		final ElectricConsumer consumer = (ElectricConsumer) element;
+		runner.add(name + ".electricPower", () -> {
+			element.invalidate();
+			return consumer.electricPower();
+		});
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.benchmark;
+
+import dave.model.Model;
+import dave.model.NetworkGenerator;
+
+// Whole plant steps for generated chilled water plants from a single riser up to a campus.
+public class PlantBenchmarks {
+
+	public static void addTo(BenchmarkRunner runner) {
+		addPlant(runner, "Plant small", 4, null);
+		addPlant(runner, "Plant medium", 40, null);
+		addPlant(runner, "Plant large", 400, null);
+		addPlant(runner, "Plant large network explicit", 400, "Explicit");
+		addPlant(runner, "Plant large network implicit", 400, "Implicit");
+	}
+
+	private static void addPlant(BenchmarkRunner runner, String name, int coils, String pressureSolver) {
+		NetworkGenerator generator = new NetworkGenerator();
+		generator.setCoils(coils);
+		generator.setPressureSolver(pressureSolver);
+		final Model model = generator.generate(1.0 / 3600);
+		runner.add(name + " (" + generator.elementCount() + " elements).step", () -> {
+			model.step();
+			return 0;
+		});
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.benchmark;
+
+import java.util.ArrayList;
+
+import dave.model.Model;
+import dave.model.NetworkGenerator;
+
+// Step time per element of generated plants from a few coils up to a campus. The run fails
+// when the largest plant's time per element grows past the allowed ratio of the smallest.
+public class ScalingBenchmarks {
+
+	// Arguments: pressure solver or "Nodes", largest coil count, allowed ratio, measurement ms.
+	public static void main(String[] args) {
+		String pressureSolver = args.length > 0 ? args[0] : "Implicit";
+		if (pressureSolver.equals("Nodes")) {
+			pressureSolver = null;
+		}
+		int maxCoils = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+		double allowedRatio = args.length > 2 ? Double.parseDouble(args[2]) : 3.0;
+		long measurementMillis = args.length > 3 ? Long.parseLong(args[3]) : 1000;
+
+		ArrayList<Integer> elementCounts = new ArrayList<Integer>();
+		BenchmarkRunner runner = new BenchmarkRunner(measurementMillis, measurementMillis, 3);
+		for (int coils = 10; coils <= maxCoils; coils *= 10) {
+			addPlant(runner, coils, pressureSolver, elementCounts);
+			if (coils * 5 <= maxCoils && coils * 10 > maxCoils) {
+				addPlant(runner, coils * 5, pressureSolver, elementCounts);
+			}
+		}
+		ArrayList<BenchmarkResult> results = runner.run(null);
+
+		System.out.println(String.format("%-30s%12s%16s%18s", "Plant", "Elements", "us/step", "ns/element-step"));
+		double first = 0;
+		double last = 0;
+		for (int i = 0; i < results.size(); i++) {
+			double nanosPerElement = 1.0E9 / results.get(i).operationsPerSecond() / elementCounts.get(i);
+			System.out.println(String.format("%-30s%12d%16.1f%18.1f", results.get(i).name(), elementCounts.get(i),
+					1.0E6 / results.get(i).operationsPerSecond(), nanosPerElement));
+			if (i == 0) {
+				first = nanosPerElement;
+			}
+			last = nanosPerElement;
+		}
+		double ratio = last / first;
+		System.out.println(String.format("Largest to smallest time per element: %.2f (allowed %.2f)", ratio, allowedRatio));
+		if (ratio > allowedRatio) {
+			System.exit(1);
+		}
+	}
+
+	private static void addPlant(BenchmarkRunner runner, int coils, String pressureSolver, ArrayList<Integer> elementCounts) {
+		NetworkGenerator generator = new NetworkGenerator();
+		generator.setCoils(coils);
+		generator.setPressureSolver(pressureSolver);
+		final Model model = generator.generate(1.0 / 3600);
+		elementCounts.add(generator.elementCount());
+		runner.add(generator.coilCount() + " coils", () -> {
+			model.step();
+			return 0;
+		});
+	}
+
+}
@@ -0,0 +1,219 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import willie.core.ReportWriter;
+import willie.output.Report;
+
+// Integrates a hydronic network across each timestep with as many substeps as the local
+// error, estimated by step doubling, allows. Once a whole timestep has passed as one substep,
+// the next is taken in a single advance and accepted if its change differs from the last by
+// less than the tolerance, so quiet periods cost no more than a fixed step.
+public class AdaptiveStepController implements ModelObject, ReportWriter, Checkpointable {
+
+	private String name;
+	private HydronicNetwork network;
+	private double temperatureTolerance;
+	private double pressureTolerance;
+	private double minimumStep;
+	private double step;
+	private int acceptedSteps;
+	private int rejectedSteps;
+	private long totalAcceptedSteps;
+	private long totalRejectedSteps;
+	private long singleSteps;
+	private boolean quiet;
+	private double[] lastChange;
+	private final double maxGrowth = 5.0;
+	private final double maxShrink = 0.2;
+	private final double safetyFactor = 0.9;
+
+	public AdaptiveStepController(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		network = (HydronicNetwork) objectReferences.get(objectData.getAlpha("Network"));
+		temperatureTolerance = objectData.getReal("Temperature Tolerance");
+		pressureTolerance = objectData.getReal("Pressure Tolerance");
+		minimumStep = objectData.getReal("Minimum Step");
+		// A step that can halve without bound never gives up on a step it cannot meet.
+		if (!(minimumStep > 0)) {
+			throw new IllegalArgumentException("Adaptive step controller " + name + " needs a positive Minimum Step.");
+		}
+		network.setStepController(this);
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	// The substep and the change of a quiet timestep carried into the next one are the
+	// state, the counts are statistics.
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeDouble(step);
+		out.writeBoolean(quiet);
+		if (quiet) {
+			out.writeInt(lastChange.length);
+			for (double change : lastChange) {
+				out.writeDouble(change);
+			}
+		}
+	}
+
+	@Override
+	public void readState(DataInput in) throws IOException {
+		step = in.readDouble();
+		quiet = in.readBoolean();
+		if (quiet) {
+			lastChange = new double[in.readInt()];
+			for (int i = 0; i < lastChange.length; i++) {
+				lastChange[i] = in.readDouble();
+			}
+		}
+	}
+
+	void integrate(double dtHours) {
+		int size = network.stateSize();
+		double[] start = new double[size];
+		double[] fullStep = new double[size];
+		double[] halfSteps = new double[size];
+
+		if (step <= 0 || step > dtHours) {
+			step = dtHours;
+		}
+		acceptedSteps = 0;
+		rejectedSteps = 0;
+		if (quiet) {
+			network.getState(start);
+			network.advance(dtHours);
+			network.getState(fullStep);
+			if (changeError(start, fullStep) <= 1.0) {
+				for (int i = 0; i < size; i++) {
+					lastChange[i] = fullStep[i] - start[i];
+				}
+				acceptedSteps = 1;
+				singleSteps++;
+				totalAcceptedSteps++;
+				return;
+			}
+			network.setState(start);
+		}
+		quiet = false;
+		double[] timestepStart = new double[size];
+		network.getState(timestepStart);
+
+		double elapsed = 0;
+		while (elapsed < dtHours) {
+			double h = Math.min(step, dtHours - elapsed);
+			boolean lastStep = h == dtHours - elapsed;
+
+			network.getState(start);
+			network.advance(h);
+			network.getState(fullStep);
+			network.setState(start);
+			network.advance(0.5 * h);
+			network.advance(0.5 * h);
+			network.getState(halfSteps);
+
+			double error = error(fullStep, halfSteps);
+			if (error <= 1.0 || h <= minimumStep) {
+				acceptedSteps++;
+				elapsed = lastStep ? dtHours : elapsed + h;
+			} else {
+				rejectedSteps++;
+				network.setState(start);
+			}
+
+			// A substep shortened to land on the end of the timestep says nothing about the next one.
+			if (h == step || error > 1.0) {
+				double factor = error == 0 ? maxGrowth : Math.min(maxGrowth, Math.max(maxShrink, safetyFactor / Math.sqrt(error)));
+				step = Math.max(minimumStep, Math.min(dtHours, h * factor));
+			}
+		}
+		totalAcceptedSteps += acceptedSteps;
+		totalRejectedSteps += rejectedSteps;
+		if (acceptedSteps == 1 && rejectedSteps == 0) {
+			quiet = true;
+			lastChange = new double[size];
+			network.getState(fullStep);
+			for (int i = 0; i < size; i++) {
+				lastChange[i] = fullStep[i] - timestepStart[i];
+			}
+		}
+	}
+
+	// The change of an Euler step changes by h^2 x'' from one step to the next, four times
+	// what step doubling measures, so the two estimates are held to the same tolerance.
+	private double changeError(double[] start, double[] end) {
+		double error = 0;
+		for (int i = 0; i < start.length; i++) {
+			double tolerance = network.isPressure(i) ? pressureTolerance : temperatureTolerance;
+			error = Math.max(error, 0.25 * Math.abs(end[i] - start[i] - lastChange[i]) / tolerance);
+		}
+		return error;
+	}
+
+	private double error(double[] fullStep, double[] halfSteps) {
+		double error = 0;
+		for (int i = 0; i < fullStep.length; i++) {
+			double tolerance = network.isPressure(i) ? pressureTolerance : temperatureTolerance;
+			error = Math.max(error, Math.abs(fullStep[i] - halfSteps[i]) / tolerance);
+		}
+		return error;
+	}
+
+	public long totalAcceptedSteps() {
+		return totalAcceptedSteps;
+	}
+
+	public long totalRejectedSteps() {
+		return totalRejectedSteps;
+	}
+
+	public long singleSteps() {
+		return singleSteps;
+	}
+
+	@Override
+	public void addHeader(Report report) {
+		report.addTitle(name, 5);
+		report.addDataHeader("Accepted Steps", "");
+		report.addDataHeader("Rejected Steps", "");
+		report.addDataHeader("Total Accepted Steps", "");
+		report.addDataHeader("Total Rejected Steps", "");
+		report.addDataHeader("Step Size", "[Hr]");
+	}
+
+	@Override
+	public void addData(Report report) {
+		report.putReal(acceptedSteps);
+		report.putReal(rejectedSteps);
+		report.putReal(totalAcceptedSteps);
+		report.putReal(totalRejectedSteps);
+		report.putReal(step);
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import booker.building_data.BookerObject;
+
+public class BookerObjectData implements ObjectData {
+
+	private BookerObject objectData;
+
+	public BookerObjectData(BookerObject objectData) {
+		this.objectData = objectData;
+	}
+
+	@Override
+	public double getReal(String field) {
+		return objectData.getReal(field);
+	}
+
+	@Override
+	public double getReal(String field, int index) {
+		return objectData.getReal(field, index);
+	}
+
+	@Override
+	public String getAlpha(String field) {
+		return objectData.getAlpha(field);
+	}
+
+	@Override
+	public String getAlpha(String field, int index) {
+		return objectData.getAlpha(field, index);
+	}
+
+	@Override
+	public int size(String field) {
+		return objectData.size(field);
+	}
+
+}
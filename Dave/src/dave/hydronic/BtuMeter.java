@@ -17,14 +17,11 @@
  */
 package dave.hydronic;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Sensor;
 import willie.core.ReportWriter;
-import willie.core.WillieObject;
 import willie.output.Report;
 
-public class BtuMeter implements WillieObject, Sensor, ReportWriter {
+public class BtuMeter implements ModelObject, Sensor, ReportWriter {
 	
 	private String name;
 	private LiquidNode inletNode;
@@ -36,7 +33,7 @@ public class BtuMeter implements WillieObject, Sensor, ReportWriter {
 	}
 	
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		flowSensor = (LiquidFlowSensor)objectReferences.get(objectData.getAlpha("Flow Sensor"));
 		inletNode = (LiquidNode)objectReferences.get(objectData.getAlpha("Inlet Node"));
 		outletNode = (LiquidNode)objectReferences.get(objectData.getAlpha("Outlet Node"));
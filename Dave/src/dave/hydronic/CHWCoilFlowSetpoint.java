@@ -19,15 +19,12 @@ package dave.hydronic;
 
 import static java.lang.Math.pow;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Setpoint;
 import willie.core.ReportWriter;
-import willie.core.WillieObject;
 import willie.loads.Load;
 import willie.output.Report;
 
-public class CHWCoilFlowSetpoint implements WillieObject, Setpoint, ReportWriter {
+public class CHWCoilFlowSetpoint implements ModelObject, Setpoint, ReportWriter {
 
 	private String name;
 	private Coil coil;
@@ -41,7 +38,7 @@ public class CHWCoilFlowSetpoint implements WillieObject, Setpoint, ReportWriter
 	}
 
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		coil = (Coil) objectReferences.get(objectData.getAlpha("Coil"));
 		airsideControl = objectData.getAlpha("Airside Control");
 		nominalCHWST = objectData.getReal("Nominal CHWST");
@@ -0,0 +1,98 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Binary checkpoint of the dynamic state of a model. States are matched to objects by name,
+// so a checkpoint can warm start a model that has since been edited.
+public final class Checkpoint {
+
+	private static final byte[] MAGIC = { 'D', 'A', 'V', 'E', 'C', 'K', 'P', '1' };
+
+	private Checkpoint() {
+	}
+
+	public static void write(String fileName, Iterable<?> objects) throws IOException {
+		ByteArrayOutputStream state = new ByteArrayOutputStream();
+		DataOutputStream stateOut = new DataOutputStream(state);
+		int count = 0;
+		for (Object object : objects) {
+			if (object instanceof Checkpointable) {
+				count++;
+			}
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+			out.write(MAGIC);
+			out.writeInt(count);
+			for (Object object : objects) {
+				if (object instanceof Checkpointable) {
+					Checkpointable checkpointable = (Checkpointable) object;
+					state.reset();
+					checkpointable.writeState(stateOut);
+					stateOut.flush();
+					out.writeUTF(checkpointable.name());
+					out.writeInt(state.size());
+					state.writeTo(out);
+				}
+			}
+		}
+	}
+
+	// Returns the number of objects restored.
+	public static int restore(String fileName, Iterable<?> objects) throws IOException {
+		HashMap<String, byte[]> states = new HashMap<String, byte[]>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+			byte[] magic = new byte[MAGIC.length];
+			in.readFully(magic);
+			if (!Arrays.equals(magic, MAGIC)) {
+				throw new IOException(fileName + " is not a checkpoint.");
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				byte[] state = new byte[in.readInt()];
+				in.readFully(state);
+				states.put(name, state);
+			}
+		}
+		int restored = 0;
+		for (Object object : objects) {
+			if (object instanceof Checkpointable) {
+				Checkpointable checkpointable = (Checkpointable) object;
+				byte[] state = states.get(checkpointable.name());
+				if (state != null) {
+					checkpointable.readState(new DataInputStream(new ByteArrayInputStream(state)));
+					restored++;
+				}
+			}
+		}
+		return restored;
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.WeakHashMap;
+
+import willie.core.RequiresPostStepProcessing;
+import willie.core.RequiresTimeManager;
+import willie.core.TimeManager;
+
+// Restores the listed objects, if the restore file exists, before any of them steps, and
+// saves them every Save Interval hours and at the end of a run that finished. A Project run
+// has no end of run, so it only keeps the interval saves.
+public class CheckpointFile implements ModelObject, RequiresTimeManager, RequiresPostStepProcessing, RequiresEndOfRun {
+
+	private static final WeakHashMap<TimeManager, ArrayList<CheckpointFile>> runs = new WeakHashMap<TimeManager, ArrayList<CheckpointFile>>();
+
+	private String name;
+	private String restoreFile;
+	private String saveFile;
+	private double saveInterval;
+	private ArrayList<Checkpointable> objects;
+	private long saveSteps;
+	private long steps;
+	private boolean restored;
+
+	public CheckpointFile(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		restoreFile = objectData.getAlpha("Restore File");
+		saveFile = objectData.getAlpha("Save File");
+		saveInterval = objectData.getReal("Save Interval");
+		objects = new ArrayList<Checkpointable>();
+		for (int i = 0; i < objectData.size("Objects"); i++) {
+			objects.add((Checkpointable) objectReferences.get(objectData.getAlpha("Objects", i)));
+		}
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public void linkToTimeManager(TimeManager timeManager) {
+		saveSteps = saveInterval > 0 ? Math.max(1, Math.round(saveInterval / timeManager.dtHours())) : 0;
+		synchronized (runs) {
+			ArrayList<CheckpointFile> checkpoints = runs.get(timeManager);
+			if (checkpoints == null) {
+				checkpoints = new ArrayList<CheckpointFile>();
+				runs.put(timeManager, checkpoints);
+			}
+			for (CheckpointFile checkpoint : checkpoints) {
+				if (checkpoint.saveTarget().equals(saveTarget())) {
+					throw new IllegalArgumentException("Checkpoint " + name + " saves to " + saveFile + ", which checkpoint "
+							+ checkpoint.name + " already saves to.");
+				}
+			}
+			checkpoints.add(this);
+		}
+	}
+
+	// Called as each node, network and time series begins its first step. The first call
+	// of a run restores every checkpoint of the run.
+	public static void beforeFirstStep(TimeManager timeManager) {
+		ArrayList<CheckpointFile> checkpoints;
+		synchronized (runs) {
+			checkpoints = runs.get(timeManager);
+		}
+		if (checkpoints != null) {
+			for (CheckpointFile checkpoint : checkpoints) {
+				checkpoint.restore();
+			}
+		}
+	}
+
+	private void restore() {
+		if (restored) {
+			return;
+		}
+		restored = true;
+		if (new File(restoreFile).exists()) {
+			try {
+				Checkpoint.restore(restoreFile, objects);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not restore checkpoint " + restoreFile + ".", e);
+			}
+		}
+	}
+
+	@Override
+	public void processPostStep() {
+		steps++;
+		if (saveSteps > 0 && steps % saveSteps == 0) {
+			save();
+		}
+	}
+
+	// A failed run keeps the last save, rather than overwriting it with a broken state.
+	@Override
+	public void endRun(boolean completed) {
+		if (completed) {
+			save();
+		}
+	}
+
+	// The state is written beside the save file and moved over it, so a save that fails, or
+	// one from another run, never leaves a partly written checkpoint.
+	public void save() {
+		Path target = new File(saveFile).getAbsoluteFile().toPath();
+		Path partial = target.resolveSibling(target.getFileName() + ".partial" + Thread.currentThread().getId());
+		try {
+			Checkpoint.write(partial.toString(), objects);
+			Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not save checkpoint " + saveFile + ".", e);
+		}
+	}
+
+	private String saveTarget() {
+		return new File(saveFile).getAbsoluteFile().toPath().normalize().toString();
+	}
+
+}
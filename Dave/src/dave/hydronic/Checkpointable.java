@@ -0,0 +1,34 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// An object whose dynamic state is saved to and restored from a checkpoint, read back in the
+// order it was written.
+public interface Checkpointable {
+
+	public String name();
+
+	public void writeState(DataOutput out) throws IOException;
+
+	public void readState(DataInput in) throws IOException;
+
+}
@@ -17,17 +17,14 @@
  */
 package dave.hydronic;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Controller;
 import willie.core.Conversions;
 import willie.core.ElectricConsumer;
 import willie.core.ReportWriter;
 import willie.core.TwoVariableFunction;
-import willie.core.WillieObject;
 import willie.output.Report;
 
-public class Chiller implements WillieObject, ElectricConsumer, ReportWriter {
+public class Chiller implements ModelObject, ElectricConsumer, ReportWriter {
 	
 	private String name;
 	private double nominalCapacity;
@@ -38,6 +35,14 @@ public class Chiller implements WillieObject, ElectricConsumer, ReportWriter {
 	private TwoVariableFunction eirFChwEct;
 	private TwoVariableFunction eirFPlrDt;
 	private Controller controller;
+	private double nominalEir = Double.NaN;
+	private boolean operating;
+	private double operatingCapacity;
+	private double evaporatorHeat;
+	private double partLoadRatio;
+	private double operatingEfficiency;
+	private double electricPower;
+	private double condenserHeat;
 	
 	public Chiller(String name){
 		this.name = name;
@@ -49,7 +54,7 @@ public class Chiller implements WillieObject, ElectricConsumer, ReportWriter {
 	}
 
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		nominalCapacity = objectData.getReal("Nominal Capacity");
 		nominalEfficiency = objectData.getReal("Nominal Efficiency");
 		capacityFChwEct = (TwoVariableFunction)objectReferences.get(objectData.getAlpha("Capacity f(CHW,ECT)"));
@@ -62,47 +67,59 @@ public class Chiller implements WillieObject, ElectricConsumer, ReportWriter {
 		condenser.setChiller(this);
 	}
 	
-	public double operatingCapacity(){
-		return capacityFChwEct.evaluate(evaporator.outletTemperature(), condenser.inletTemperature())*nominalCapacity*12000;
+	// The operating state is evaluated in one pass the first time any part of it is needed in
+	// a step, and reused until the evaporator or condenser is invalidated.
+	void invalidate(){
+		operating = false;
 	}
 	
-	public double evaporatorHeat(){
-		return -controller.output() * operatingCapacity();
-	}
-	
-	public double condenserHeat(){
-		return -evaporatorHeat() + Conversions.kWToBtu(electricPower());
+	private void operate(){
+		if (operating) {
+			return;
+		}
+		if (Instrumentation.ENABLED) {
+			Instrumentation.countControllerOutput(Chiller.class);
+		}
+		if (Double.isNaN(nominalEir)) {
+			nominalEir = Conversions.kWTToEir(nominalEfficiency);
+		}
+		double chwst = evaporator.outletTemperature();
+		double condenserInlet = condenser.inletTemperature();
+		operatingCapacity = capacityFChwEct.evaluate(chwst, condenserInlet)*nominalCapacity*12000;
+		evaporatorHeat = -controller.output() * operatingCapacity;
+		partLoadRatio = -evaporatorHeat / operatingCapacity;
+		double ect = condenserInlet + (10 - (condenser.outletTemperature() - condenserInlet));
+		if (evaporatorHeat == 0) {
+			operatingEfficiency = 0;
+		} else {
+			operatingEfficiency = Conversions.btuTokW(operatingCapacity*
+					eirFChwEct.evaluate(chwst,ect)* 
+							eirFPlrDt.evaluate(partLoadRatio, ect - chwst)* nominalEir) / (-Conversions.btuToTons(evaporatorHeat));
+		}
+		electricPower = -evaporatorHeat/12000.0 * operatingEfficiency;
+		condenserHeat = -evaporatorHeat + Conversions.kWToBtu(electricPower);
+		operating = true;
 	}
 	
-	private double partLoadRatio() {
-		return -evaporatorHeat() / operatingCapacity();
-	}
-
-	private double nominalEir() {
-		return Conversions.kWTToEir(nominalEfficiency);
+	public double operatingCapacity(){
+		operate();
+		return operatingCapacity;
 	}
 	
-	private double dt(){
-		return  ect() - evaporator.outletTemperature();
+	public double evaporatorHeat(){
+		operate();
+		return evaporatorHeat;
 	}
 	
-	private double ect(){
-		return condenser.inletTemperature() + (10 - (condenser.outletTemperature() -condenser.inletTemperature()));
-	}
-
-	private double operatingEfficiency() {
-		if (evaporatorHeat() == 0) {
-			return 0;
-		} else {
-			return Conversions.btuTokW(operatingCapacity()*
-					eirFChwEct.evaluate(evaporator.outletTemperature(),ect())* 
-							eirFPlrDt.evaluate(partLoadRatio(), dt())* nominalEir()) / (-Conversions.btuToTons(evaporatorHeat()));
-		}
+	public double condenserHeat(){
+		operate();
+		return condenserHeat;
 	}
 
 	@Override
 	public double electricPower() {
-		return -evaporatorHeat()/12000.0 * operatingEfficiency();
+		operate();
+		return electricPower;
 	}
 
 	@Override
@@ -120,13 +137,14 @@ public class Chiller implements WillieObject, ElectricConsumer, ReportWriter {
 
 	@Override
 	public void addData(Report report) {
+		operate();
 		report.putReal(evaporator.volumetricFlow());
 		report.putReal(evaporator.outletTemperature());
 		report.putReal(condenser.inletTemperature());
-		report.putReal(-evaporatorHeat()/12000);
-		report.putReal(partLoadRatio());
-		report.putReal(operatingEfficiency());
-		report.putReal(electricPower());
+		report.putReal(-evaporatorHeat/12000);
+		report.putReal(partLoadRatio);
+		report.putReal(operatingEfficiency);
+		report.putReal(electricPower);
 		
 	}
 }
@@ -17,12 +17,7 @@
  */
 package dave.hydronic;
 
-import static java.lang.Math.pow;
-
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.core.ReportWriter;
-import willie.core.WillieObject;
 import willie.loads.Load;
 import willie.output.Report;
 
@@ -32,6 +27,7 @@ public class Coil extends LiquidElement implements ReportWriter {
 	private double nominalFlow;
 	private double nominalPressureDrop;
 	private double pressureExponent;
+	private PowerLawFlow powerLaw;
 	private Load load;
 	private double nominalCapacity;
 	
@@ -41,12 +37,13 @@ public class Coil extends LiquidElement implements ReportWriter {
 	}
 	
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		super.read(objectData, objectReferences);
-		nominalFlow = objectData.getReal("Nominal Flow");
-		nominalCapacity = objectData.getReal("Nominal Capacity");
-		nominalPressureDrop = objectData.getReal("Nominal Pressure Drop");
-		pressureExponent = objectData.getReal("Pressure Exponent");	
+		nominalFlow = getReal(objectData, "Nominal Flow");
+		nominalCapacity = getReal(objectData, "Nominal Capacity");
+		nominalPressureDrop = getReal(objectData, "Nominal Pressure Drop");
+		pressureExponent = getReal(objectData, "Pressure Exponent");	
+		powerLaw = new PowerLawFlow(nominalFlow, nominalPressureDrop, pressureExponent);
 		load = (Load)objectReferences.get(objectData.getAlpha("Load"));
 	}
 
@@ -56,14 +53,18 @@ public class Coil extends LiquidElement implements ReportWriter {
 	}
 	
 	@Override
-	public double volumetricFlow() {
-		if (pressureDrop() < 0) {
-			return -nominalFlow
-					* pow((-pressureDrop() / nominalPressureDrop), 1 / pressureExponent);
-		} else {
-			return nominalFlow
-					* pow((pressureDrop() / nominalPressureDrop), 1 / pressureExponent);
-		}
+	protected double computeVolumetricFlow() {
+		return powerLaw.flow(pressureDrop());
+	}
+	
+	@Override
+	public double dFlowDPressureDrop() {
+		return powerLaw.derivative(pressureDrop());
+	}
+	
+	@Override
+	void compile(CompiledNetwork network, int element) {
+		network.setPowerLaw(element, powerLaw);
 	}
 	
 	public double nominalFlow(){
@@ -79,7 +80,7 @@ public class Coil extends LiquidElement implements ReportWriter {
 	}
 
 	@Override
-	public double heatGain() {
+	protected double computeHeatGain() {
 		return load();
 	}
 
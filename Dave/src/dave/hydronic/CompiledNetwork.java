@@ -0,0 +1,480 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+// The node/element graph of a hydronic network lowered into flat arrays, the nodes managed by
+// the network first, then the boundary nodes they exchange flow with.
+public class CompiledNetwork {
+
+	static final int POWER_LAW = 0;
+	static final int VALVE = 1;
+	static final int PUMP = 2;
+	static final int TOWER = 3;
+
+	private ArrayList<DynamicLiquidNode> nodes;
+	private ArrayList<LiquidNode> boundaryNodes;
+	private ArrayList<LiquidElement> elements;
+
+	final int nodeCount;
+	final int elementCount;
+
+	final double[] pressure;
+	final double[] temperature;
+	final double[] alpha;
+	final double[] heatCapacity;
+	final int[] variableNodes;
+	final int[] inletStart;
+	final int[] inletElements;
+	final int[] outletStart;
+	final int[] outletElements;
+
+	final int[] inlet;
+	final int[] outlet;
+	final int[] kind;
+	final PumpCurve[] pumpCurve;
+	final PowerLawFlow[] powerLaw;
+	final double[] staticHead;
+	final double[] capacityRateFactor;
+	final double[] opening;
+	final double[] heatGain;
+	final double[] flow;
+	final double[] flowDerivative;
+	final boolean[] activeNodes;
+	final boolean[] activeElements;
+	final boolean[] heatGainInputs;
+	private boolean variableProperties;
+
+	final int componentCount;
+	final int[] componentStart;
+	final int[] componentNodes;
+	final int[] componentElementStart;
+	final int[] componentElements;
+
+	public CompiledNetwork(ArrayList<DynamicLiquidNode> nodes) {
+		this.nodes = nodes;
+		nodeCount = nodes.size();
+
+		IdentityHashMap<LiquidNode, Integer> nodeIndices = new IdentityHashMap<LiquidNode, Integer>();
+		IdentityHashMap<LiquidElement, Integer> elementIndices = new IdentityHashMap<LiquidElement, Integer>();
+		elements = new ArrayList<LiquidElement>();
+		for (int i = 0; i < nodeCount; i++) {
+			nodeIndices.put(nodes.get(i), i);
+		}
+		for (DynamicLiquidNode node : nodes) {
+			addElements(node.inletElements(), elementIndices);
+			addElements(node.outletElements(), elementIndices);
+		}
+		elementCount = elements.size();
+
+		boundaryNodes = new ArrayList<LiquidNode>();
+		for (LiquidElement element : elements) {
+			addBoundaryNode(element.inletNode(), nodeIndices);
+			addBoundaryNode(element.outletNode(), nodeIndices);
+		}
+
+		int allNodes = nodeCount + boundaryNodes.size();
+		pressure = new double[allNodes];
+		temperature = new double[allNodes];
+		alpha = new double[nodeCount];
+		heatCapacity = new double[nodeCount];
+		inletStart = new int[nodeCount + 1];
+		outletStart = new int[nodeCount + 1];
+
+		int variableCount = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			DynamicLiquidNode node = nodes.get(i);
+			if (node instanceof VariableLiquidNode) {
+				alpha[i] = ((VariableLiquidNode) node).alpha();
+				variableCount++;
+			}
+			inletStart[i + 1] = inletStart[i] + node.inletElements().size();
+			outletStart[i + 1] = outletStart[i] + node.outletElements().size();
+		}
+		variableNodes = new int[variableCount];
+		inletElements = new int[inletStart[nodeCount]];
+		outletElements = new int[outletStart[nodeCount]];
+		for (int i = 0, v = 0; i < nodeCount; i++) {
+			DynamicLiquidNode node = nodes.get(i);
+			if (node instanceof VariableLiquidNode) {
+				variableNodes[v++] = i;
+			}
+			for (int j = 0; j < node.inletElements().size(); j++) {
+				inletElements[inletStart[i] + j] = elementIndices.get(node.inletElements().get(j));
+			}
+			for (int j = 0; j < node.outletElements().size(); j++) {
+				outletElements[outletStart[i] + j] = elementIndices.get(node.outletElements().get(j));
+			}
+		}
+
+		inlet = new int[elementCount];
+		outlet = new int[elementCount];
+		kind = new int[elementCount];
+		pumpCurve = new PumpCurve[elementCount];
+		powerLaw = new PowerLawFlow[elementCount];
+		staticHead = new double[elementCount];
+		capacityRateFactor = new double[elementCount];
+		opening = new double[elementCount];
+		heatGain = new double[elementCount];
+		flow = new double[elementCount];
+		flowDerivative = new double[elementCount];
+		activeNodes = new boolean[allNodes];
+		activeElements = new boolean[elementCount];
+		heatGainInputs = new boolean[elementCount];
+		for (int i = 0; i < allNodes; i++) {
+			activeNodes[i] = true;
+		}
+		for (int e = 0; e < elementCount; e++) {
+			LiquidElement element = elements.get(e);
+			inlet[e] = nodeIndices.get(element.inletNode());
+			outlet[e] = nodeIndices.get(element.outletNode());
+			capacityRateFactor[e] = element.capacityRateFactor();
+			variableProperties |= element.fluid().temperatureDependent();
+			opening[e] = 1.0;
+			activeElements[e] = true;
+			heatGainInputs[e] = element.heatGainHasInputs();
+			element.compile(this, e);
+		}
+
+		for (int i = 0; i < nodeCount; i++) {
+			heatCapacity[i] = LiquidElementMath.sumHeatCapacity(nodes.get(i).inletElements());
+		}
+
+		// Variable pressure nodes joined by an element share a hydraulic component. Nodes
+		// held at a fixed pressure do not couple the pressures on either side of them.
+		int[] parent = new int[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			parent[i] = i;
+		}
+		for (int e = 0; e < elementCount; e++) {
+			if (isVariable(inlet[e]) && isVariable(outlet[e])) {
+				parent[root(parent, inlet[e])] = root(parent, outlet[e]);
+			}
+		}
+		int[] component = new int[nodeCount];
+		int[] componentSize = new int[variableCount];
+		int components = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			component[i] = -1;
+		}
+		for (int v = 0; v < variableCount; v++) {
+			int root = root(parent, variableNodes[v]);
+			if (component[root] < 0) {
+				component[root] = components++;
+			}
+			component[variableNodes[v]] = component[root];
+			componentSize[component[root]]++;
+		}
+		componentCount = components;
+		componentStart = new int[componentCount + 1];
+		for (int c = 0; c < componentCount; c++) {
+			componentStart[c + 1] = componentStart[c] + componentSize[c];
+		}
+		componentNodes = new int[variableCount];
+		int[] fill = new int[componentCount];
+		for (int v = 0; v < variableCount; v++) {
+			int c = component[variableNodes[v]];
+			componentNodes[componentStart[c] + fill[c]++] = variableNodes[v];
+		}
+
+		int[] elementComponent = new int[elementCount];
+		componentElementStart = new int[componentCount + 1];
+		for (int e = 0; e < elementCount; e++) {
+			elementComponent[e] = isVariable(inlet[e]) ? component[inlet[e]] : isVariable(outlet[e]) ? component[outlet[e]] : -1;
+			if (elementComponent[e] >= 0) {
+				componentElementStart[elementComponent[e] + 1]++;
+			}
+		}
+		for (int c = 0; c < componentCount; c++) {
+			componentElementStart[c + 1] += componentElementStart[c];
+		}
+		componentElements = new int[componentElementStart[componentCount]];
+		fill = new int[componentCount];
+		for (int e = 0; e < elementCount; e++) {
+			int c = elementComponent[e];
+			if (c >= 0) {
+				componentElements[componentElementStart[c] + fill[c]++] = e;
+			}
+		}
+	}
+
+	private boolean isVariable(int node) {
+		return node < nodeCount && alpha[node] != 0;
+	}
+
+	private int root(int[] parent, int node) {
+		while (parent[node] != node) {
+			parent[node] = parent[parent[node]];
+			node = parent[node];
+		}
+		return node;
+	}
+
+	private void addElements(ArrayList<LiquidElement> nodeElements, IdentityHashMap<LiquidElement, Integer> elementIndices) {
+		for (LiquidElement element : nodeElements) {
+			if (!elementIndices.containsKey(element)) {
+				elementIndices.put(element, elements.size());
+				elements.add(element);
+			}
+		}
+	}
+
+	private void addBoundaryNode(LiquidNode node, IdentityHashMap<LiquidNode, Integer> nodeIndices) {
+		if (!nodeIndices.containsKey(node)) {
+			nodeIndices.put(node, nodeCount + boundaryNodes.size());
+			boundaryNodes.add(node);
+		}
+	}
+
+	void setPowerLaw(int element, PowerLawFlow powerLaw) {
+		kind[element] = POWER_LAW;
+		this.powerLaw[element] = powerLaw;
+	}
+
+	void setValve(int element, PowerLawFlow powerLaw) {
+		kind[element] = VALVE;
+		this.powerLaw[element] = powerLaw;
+	}
+
+	void setPump(int element, PumpCurve curve) {
+		kind[element] = PUMP;
+		pumpCurve[element] = curve;
+	}
+
+	void setTower(int element, PowerLawFlow frictionFlow, double staticHead) {
+		kind[element] = TOWER;
+		this.powerLaw[element] = frictionFlow;
+		this.staticHead[element] = staticHead;
+	}
+
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	public int elementCount() {
+		return elementCount;
+	}
+
+	public int boundaryNodeCount() {
+		return boundaryNodes.size();
+	}
+
+	public int componentCount() {
+		return componentCount;
+	}
+
+	public int componentSize(int component) {
+		return componentStart[component + 1] - componentStart[component];
+	}
+
+	public void pullState() {
+		for (int i = 0; i < nodeCount; i++) {
+			pressure[i] = nodes.get(i).pressure();
+			temperature[i] = nodes.get(i).temperature();
+		}
+		for (int i = 0; i < boundaryNodes.size(); i++) {
+			pressure[nodeCount + i] = boundaryNodes.get(i).pressure();
+			temperature[nodeCount + i] = boundaryNodes.get(i).temperature();
+		}
+		if (variableProperties) {
+			updateProperties();
+		}
+	}
+
+	// Temperature dependent fluid properties are taken from the node objects at the start
+	// of each step and held for the rest of it.
+	private void updateProperties() {
+		for (int e = 0; e < elementCount; e++) {
+			capacityRateFactor[e] = elements.get(e).capacityRateFactor();
+		}
+		for (int i = 0; i < nodeCount; i++) {
+			heatCapacity[i] = LiquidElementMath.sumHeatCapacity(nodes.get(i).inletElements());
+		}
+	}
+
+	// The element objects still read their node objects, so the array state is copied
+	// back and their cached values dropped before anything is gathered from them.
+	public void pushState() {
+		for (int i = 0; i < nodeCount; i++) {
+			DynamicLiquidNode node = nodes.get(i);
+			node.setTemperature(temperature[i]);
+			if (alpha[i] != 0) {
+				((VariableLiquidNode) node).setPressure(pressure[i]);
+			}
+		}
+		LiquidElementMath.invalidate(elements);
+	}
+
+	public ArrayList<LiquidElement> elements() {
+		return elements;
+	}
+
+	public void setNextState() {
+		for (int i = 0; i < nodeCount; i++) {
+			DynamicLiquidNode node = nodes.get(i);
+			node.setNextTemperature(temperature[i]);
+			if (alpha[i] != 0) {
+				((VariableLiquidNode) node).setNextPressure(pressure[i]);
+			}
+		}
+	}
+
+	public void gatherOpenings() {
+		for (int e = 0; e < elementCount; e++) {
+			opening[e] = elements.get(e).opening();
+		}
+	}
+
+	public void gatherHeatGains() {
+		for (int e = 0; e < elementCount; e++) {
+			heatGain[e] = elements.get(e).heatGain();
+		}
+	}
+
+	// Elements between two nodes at rest keep the heat gain they were last gathered with.
+	public void gatherActiveHeatGains() {
+		for (int e = 0; e < elementCount; e++) {
+			if (activeElements[e]) {
+				heatGain[e] = elements.get(e).heatGain();
+			}
+		}
+	}
+
+	void gatherHeatGain(int e) {
+		heatGain[e] = elements.get(e).heatGain();
+	}
+
+	void computeFlow(int e) {
+		flow[e] = flow(e, pressure[inlet[e]] - pressure[outlet[e]]);
+	}
+
+	public void computeFlows() {
+		computeFlows(0, elementCount);
+	}
+
+	// Elements between two nodes at rest keep the flow they were last evaluated with.
+	public void computeFlows(int from, int to) {
+		for (int e = from; e < to; e++) {
+			if (activeElements[e]) {
+				flow[e] = flow(e, pressure[inlet[e]] - pressure[outlet[e]]);
+			}
+		}
+	}
+
+	public int componentElementCount(int component) {
+		return componentElementStart[component + 1] - componentElementStart[component];
+	}
+
+	// The range is counted from the first element of the component.
+	public void computeComponentFlows(int component, int from, int to) {
+		for (int j = componentElementStart[component] + from; j < componentElementStart[component] + to; j++) {
+			int e = componentElements[j];
+			flow[e] = flow(e, pressure[inlet[e]] - pressure[outlet[e]]);
+		}
+	}
+
+	public void computeComponentFlowDerivatives(int component, int from, int to) {
+		for (int j = componentElementStart[component] + from; j < componentElementStart[component] + to; j++) {
+			int e = componentElements[j];
+			flowDerivative[e] = flowDerivative(e, pressure[inlet[e]] - pressure[outlet[e]]);
+		}
+	}
+
+	public void computeFlowDerivatives() {
+		computeFlowDerivatives(0, elementCount);
+	}
+
+	public void computeFlowDerivatives(int from, int to) {
+		for (int e = from; e < to; e++) {
+			flowDerivative[e] = flowDerivative(e, pressure[inlet[e]] - pressure[outlet[e]]);
+		}
+	}
+
+	private double flow(int e, double pressureDrop) {
+		switch (kind[e]) {
+		case VALVE:
+			return opening[e] * powerLaw[e].flow(pressureDrop);
+		case PUMP:
+			return pumpCurve[e].flow(opening[e], -pressureDrop);
+		case TOWER:
+			return CoolingTower.flow(powerLaw[e], staticHead[e], pressureDrop);
+		default:
+			return powerLaw[e].flow(pressureDrop);
+		}
+	}
+
+	private double flowDerivative(int e, double pressureDrop) {
+		switch (kind[e]) {
+		case VALVE:
+			return opening[e] * powerLaw[e].derivative(pressureDrop);
+		case PUMP:
+			return pumpCurve[e].flowDerivative(opening[e], -pressureDrop);
+		case TOWER:
+			return CoolingTower.flowDerivative(powerLaw[e], staticHead[e], pressureDrop);
+		default:
+			return powerLaw[e].derivative(pressureDrop);
+		}
+	}
+
+	public double netInflow(int node) {
+		double inflow = 0.0;
+		for (int j = inletStart[node]; j < inletStart[node + 1]; j++) {
+			inflow += flow[inletElements[j]];
+		}
+		double outflow = 0.0;
+		for (int j = outletStart[node]; j < outletStart[node + 1]; j++) {
+			outflow += flow[outletElements[j]];
+		}
+		return inflow - outflow;
+	}
+
+	// The temperature at which the node's energy balance closes for the current flows, heat
+	// gains and upstream temperatures. Nodes without a net inflow keep their temperature.
+	public double steadyTemperature(int node) {
+		double capacityRate = 0.0;
+		double advection = 0.0;
+		double gain = 0.0;
+		for (int j = inletStart[node]; j < inletStart[node + 1]; j++) {
+			int e = inletElements[j];
+			double rate = capacityRateFactor[e] * flow[e];
+			capacityRate += rate;
+			advection += rate * temperature[inlet[e]];
+			gain += heatGain[e];
+		}
+		if (capacityRate <= 0) {
+			return temperature[node];
+		}
+		return (advection + gain) / capacityRate;
+	}
+
+	public double temperatureChange(int node, double dtHours) {
+		double advection = 0.0;
+		for (int j = inletStart[node]; j < inletStart[node + 1]; j++) {
+			int e = inletElements[j];
+			advection += capacityRateFactor[e] * flow[e] * (temperature[outlet[e]] - temperature[inlet[e]]);
+		}
+		double gain = 0.0;
+		for (int j = inletStart[node]; j < inletStart[node + 1]; j++) {
+			gain += heatGain[inletElements[j]];
+		}
+		return -dtHours / heatCapacity[node] * (advection - gain);
+	}
+
+}
@@ -17,13 +17,10 @@
  */
 package dave.hydronic;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.core.ReportWriter;
-import willie.core.WillieObject;
 import willie.output.Report;
 
-public class ConstantLiquidNode implements LiquidNode, WillieObject, ReportWriter {
+public class ConstantLiquidNode implements LiquidNode, ModelObject, ReportWriter {
 
 	private String name;
 	private double pressure;
@@ -34,7 +31,7 @@ public class ConstantLiquidNode implements LiquidNode, WillieObject, ReportWrite
 	}
 
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		pressure = objectData.getReal("Pressure");
 		temperature = objectData.getReal("Temperature");
 
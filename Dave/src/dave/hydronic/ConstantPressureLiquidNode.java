@@ -22,19 +22,19 @@ import static dave.hydronic.LiquidElementMath.sumHeatAdvection;
 import static dave.hydronic.LiquidElementMath.sumHeatCapacity;
 import static dave.hydronic.LiquidElementMath.sumHeatGain;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.core.ReportWriter;
 import willie.core.RequiresPostStepProcessing;
 import willie.core.RequiresTimeManager;
 import willie.core.Simulator;
 import willie.core.TimeManager;
-import willie.core.WillieObject;
 import willie.output.Report;
 
-public class ConstantPressureLiquidNode implements LiquidNode, Simulator,WillieObject, ReportWriter,RequiresTimeManager,RequiresPostStepProcessing{
+public class ConstantPressureLiquidNode implements DynamicLiquidNode, Simulator,ModelObject, ReportWriter,RequiresTimeManager,RequiresPostStepProcessing,Checkpointable,Parameterized{
 	
 	private String name;
 	private double pressure;
@@ -43,6 +43,11 @@ public class ConstantPressureLiquidNode implements LiquidNode, Simulator,WillieO
 	private ArrayList<LiquidElement> inletElements;
 	private ArrayList<LiquidElement> outletElements;
 	private TimeManager timeManager;
+	private HydronicNetwork network;
+	private long steps;
+	private ParameterOverrides overrides = ParameterOverrides.NONE;
+	private boolean started;
+	private boolean restored;
 	
 	public ConstantPressureLiquidNode(String name){
 		this.name = name;
@@ -51,9 +56,14 @@ public class ConstantPressureLiquidNode implements LiquidNode, Simulator,WillieO
 	}
 	
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
-		pressure = objectData.getReal("Pressure");
-		temperature = objectData.getReal("Initial Temperature");
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		pressure = overrides.getReal(objectData, name, "Pressure");
+		temperature = overrides.getReal(objectData, name, "Initial Temperature");
+	}
+
+	@Override
+	public void setOverrides(ParameterOverrides overrides){
+		this.overrides = overrides;
 	}
 
 	@Override
@@ -88,9 +98,27 @@ public class ConstantPressureLiquidNode implements LiquidNode, Simulator,WillieO
 
 	@Override
 	public void processPostStep() {
-		temperature = nextTemperature;		
+		temperature = nextTemperature;
+		steps++;
+		LiquidElementMath.invalidate(inletElements);
+		LiquidElementMath.invalidate(outletElements);
+	}
+
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeDouble(temperature);
+		out.writeLong(steps);
 	}
 
+	@Override
+	public void readState(DataInput in) throws IOException {
+		temperature = in.readDouble();
+		steps = in.readLong();
+		restored = true;
+		LiquidElementMath.invalidate(inletElements);
+		LiquidElementMath.invalidate(outletElements);
+	}
+	
 	@Override
 	public void addHeader(Report report) {
 		report.addTitle(name, 2);
@@ -104,8 +132,56 @@ public class ConstantPressureLiquidNode implements LiquidNode, Simulator,WillieO
 		report.putReal(temperature);		
 	}
 	
+	@Override
+	public void setNetwork(HydronicNetwork network){
+		this.network = network;
+	}
+	
+	@Override
+	public void setTemperature(double temperature){
+		this.temperature = temperature;
+	}
+	
+	@Override
+	public void setNextTemperature(double nextTemperature){
+		this.nextTemperature = nextTemperature;
+	}
+	
+	@Override
+	public ArrayList<LiquidElement> inletElements(){
+		return inletElements;
+	}
+	
+	@Override
+	public ArrayList<LiquidElement> outletElements(){
+		return outletElements;
+	}
+	
+	@Override
+	public long steps(){
+		return steps;
+	}
+	
+	@Override
+	public boolean restored(){
+		return restored;
+	}
+	
+	public double temperatureChange(double dtHours){
+		return -dtHours/sumHeatCapacity(inletElements)*(sumHeatAdvection(inletElements) - sumHeatGain(inletElements));
+	}
+	
 	@Override
 	public void simulateStep1(){
-		nextTemperature = temperature - timeManager.dtHours()/sumHeatCapacity(inletElements)*(sumHeatAdvection(inletElements) - sumHeatGain(inletElements));
+		if(!started){
+			overrides.checkRead();
+			CheckpointFile.beforeFirstStep(timeManager);
+			started = true;
+		}
+		if(network == null){
+			LiquidElementMath.beginStep(inletElements);
+			LiquidElementMath.beginStep(outletElements);
+			nextTemperature = temperature + temperatureChange(timeManager.dtHours());
+		}
 	}
 }
\ No newline at end of file
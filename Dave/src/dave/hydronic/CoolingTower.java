@@ -17,16 +17,11 @@
  */
 package dave.hydronic;
 
-import static java.lang.Math.pow;
-
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Controller;
 import willie.core.ElectricConsumer;
 import willie.core.ReportWriter;
 import willie.core.RequiresWeather;
 import willie.core.Weather;
-import willie.core.WillieObject;
 import willie.output.Report;
 
 public class CoolingTower extends LiquidElement implements RequiresWeather, ElectricConsumer,ReportWriter{
@@ -41,6 +36,9 @@ public class CoolingTower extends LiquidElement implements RequiresWeather, Elec
 	private double nominalFrictionHead;
 	private double staticHead;
 	private double pressureExponent;
+	private PowerLawFlow frictionFlow;
+	private double nominalCapacity = Double.NaN;
+	private double designCapacityRatio;
 	private Weather weather;
 	private Controller controller;
 	
@@ -50,43 +48,71 @@ public class CoolingTower extends LiquidElement implements RequiresWeather, Elec
 	}
 	
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		super.read(objectData, objectReferences);
-		nominalFlow = objectData.getReal("Nominal Flow");
-		designWetbulb = objectData.getReal("Design Wetbulb");
-		designApproach = objectData.getReal("Design Approach");
-		designRange = objectData.getReal("Design Range");
-		fanOffFlow = objectData.getReal("Fan Off Flow Pct");
-		designFanPower = objectData.getReal("Design Fan Power");
-		nominalFrictionHead = objectData.getReal("Nominal Friction Head");
-		staticHead = objectData.getReal("Static Head");
-		pressureExponent = objectData.getReal("Pressure Exponent");
+		nominalFlow = getReal(objectData, "Nominal Flow");
+		designWetbulb = getReal(objectData, "Design Wetbulb");
+		designApproach = getReal(objectData, "Design Approach");
+		designRange = getReal(objectData, "Design Range");
+		fanOffFlow = getReal(objectData, "Fan Off Flow Pct");
+		designFanPower = getReal(objectData, "Design Fan Power");
+		nominalFrictionHead = getReal(objectData, "Nominal Friction Head");
+		staticHead = getReal(objectData, "Static Head");
+		pressureExponent = getReal(objectData, "Pressure Exponent");
+		frictionFlow = new PowerLawFlow(nominalFlow, nominalFrictionHead, pressureExponent);
 		controller = (Controller)objectReferences.get(objectData.getAlpha("Controller"));
 	}
 	
-	private double nominalCapacity(){
-		return 60/7.48052*density()*specificHeat() * nominalFlow * designRange;
-	}
-
 	@Override
 	public String name() {
 		return name;
 	}
 
 	@Override
-	public double volumetricFlow() {
-		if ((pressureDrop() - staticHead) < 0) {
+	protected double computeVolumetricFlow() {
+		return flow(frictionFlow, staticHead, pressureDrop());
+	}
+
+	@Override
+	public double dFlowDPressureDrop() {
+		return flowDerivative(frictionFlow, staticHead, pressureDrop());
+	}
+	
+	static double flow(PowerLawFlow frictionFlow, double staticHead, double pressureDrop) {
+		if ((pressureDrop - staticHead) < 0) {
 			return 0;
 		} else {
-			return nominalFlow * pow(((pressureDrop() - staticHead) / nominalFrictionHead), 1 / pressureExponent);
+			return frictionFlow.flow(pressureDrop - staticHead);
 		}
 	}
+	
+	static double flowDerivative(PowerLawFlow frictionFlow, double staticHead, double pressureDrop) {
+		if ((pressureDrop - staticHead) < 0) {
+			return 0;
+		} else {
+			return frictionFlow.derivative(pressureDrop - staticHead);
+		}
+	}
+	
+	@Override
+	void compile(CompiledNetwork network, int element) {
+		network.setTower(element, frictionFlow, staticHead);
+	}
 
 	@Override
-	public double heatGain() {
-		double airflow = Math.max(fanOffFlow, controller.output());
-		return -(capacityFApprWb(approach(),weather.wetbulb()) * capacityFRangeWb(range(),weather.wetbulb()) * capacityFAirflow(airflow))
-				/ designCapacityRatio() * nominalCapacity();
+	protected double computeHeatGain() {
+		double airflow = Math.max(fanOffFlow, output(controller));
+		double wetbulb = weather.wetbulb();
+		// The fluid is set by its loop after this tower is read, so the design values wait for the first step.
+		if (Double.isNaN(nominalCapacity)) {
+			nominalCapacity = 60/7.48052*density()*specificHeat() * nominalFlow * designRange;
+			designCapacityRatio = capacity(designApproach, designRange, designWetbulb, 1);
+		}
+		return -capacity(outletTemperature() - wetbulb, range(), wetbulb, airflow) / designCapacityRatio * nominalCapacity;
+	}
+	
+	private double capacity(double approach, double range, double wetbulb, double airflow) {
+		return capacityFApprWb(approach, wetbulb) * capacityFRangeWb(range, wetbulb) * capacityFAirflow(airflow);
 	}
 
 	@Override
@@ -108,11 +134,6 @@ public class CoolingTower extends LiquidElement implements RequiresWeather, Elec
 		return 0.04976825 + 1.04669762*airflow + -0.09646816 *airflow*airflow;
 	}
 	
-	private double designCapacityRatio() {
-		return capacityFApprWb(designApproach, designWetbulb) * capacityFRangeWb(designRange, designWetbulb)
-				* capacityFAirflow(1);
-	}
-
 	private double approach() {
 		return outletTemperature() - weather.wetbulb();
 	}
@@ -128,7 +149,8 @@ public class CoolingTower extends LiquidElement implements RequiresWeather, Elec
 
 	@Override
 	public double electricPower() {
-		return designFanPower * pow(controller.output(), 3);
+		double speed = output(controller);
+		return designFanPower * speed * speed * speed;
 	}
 
 	@Override
@@ -149,7 +171,7 @@ public class CoolingTower extends LiquidElement implements RequiresWeather, Elec
 		report.putReal(inletTemperature());
 		report.putReal(outletTemperature());
 		report.putReal(approach());
-		report.putReal(controller.output());
+		report.putReal(output(controller));
 		report.putReal(electricPower());		
 	}
 
@@ -17,19 +17,16 @@
  */
 package dave.hydronic;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Sensor;
-import willie.core.WillieObject;
 
-public class DPSensor implements WillieObject, Sensor {
+public class DPSensor implements ModelObject, Sensor {
 	
 	private String name;
 	private LiquidNode inletNode;
 	private LiquidNode outletNode;
 	
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		inletNode = (LiquidNode)objectReferences.get(objectData.getAlpha("Inlet Node"));
 		outletNode = (LiquidNode)objectReferences.get(objectData.getAlpha("Outlet Node"));
 	}
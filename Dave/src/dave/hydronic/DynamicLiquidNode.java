@@ -0,0 +1,38 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.util.ArrayList;
+
+public interface DynamicLiquidNode extends LiquidNode {
+
+	public void setNetwork(HydronicNetwork network);
+
+	public void setTemperature(double temperature);
+
+	public void setNextTemperature(double nextTemperature);
+
+	public ArrayList<LiquidElement> inletElements();
+
+	public ArrayList<LiquidElement> outletElements();
+
+	public long steps();
+
+	public boolean restored();
+
+}
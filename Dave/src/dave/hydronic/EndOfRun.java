@@ -0,0 +1,45 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+// Ends every object of a run that requires it, for whatever runs the model.
+public final class EndOfRun {
+
+	private EndOfRun() {
+	}
+
+	// Every object is ended even if an earlier one fails, the first failure is rethrown.
+	public static void endRun(Iterable<?> objects, boolean completed) {
+		RuntimeException failure = null;
+		for (Object object : objects) {
+			if (object instanceof RequiresEndOfRun) {
+				try {
+					((RequiresEndOfRun) object).endRun(completed);
+				} catch (RuntimeException e) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+}
@@ -17,18 +17,13 @@
  */
 package dave.hydronic;
 
-import static java.lang.Math.pow;
-
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
-import willie.core.WillieObject;
-
 public class Evaporator extends LiquidElement {
 	
 	private String name;
 	private double nominalFlow;
 	private double nominalPressureDrop;
 	private double pressureExponent;
+	private PowerLawFlow powerLaw;
 	private Chiller chiller;
 	
 	public Evaporator(String name){
@@ -37,11 +32,12 @@ public class Evaporator extends LiquidElement {
 	}
 	
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		super.read(objectData, objectReferences);
-		nominalFlow = objectData.getReal("Nominal Flow");
-		nominalPressureDrop = objectData.getReal("Nominal Pressure Drop");
-		pressureExponent = objectData.getReal("Pressure Exponent");	
+		nominalFlow = getReal(objectData, "Nominal Flow");
+		nominalPressureDrop = getReal(objectData, "Nominal Pressure Drop");
+		pressureExponent = getReal(objectData, "Pressure Exponent");	
+		powerLaw = new PowerLawFlow(nominalFlow, nominalPressureDrop, pressureExponent);
 	}
 
 	@Override
@@ -54,18 +50,30 @@ public class Evaporator extends LiquidElement {
 	}
 
 	@Override
-	public double volumetricFlow() {
-		if (pressureDrop() < 0) {
-			return -nominalFlow
-					* pow((-pressureDrop() / nominalPressureDrop), 1 / pressureExponent);
-		} else {
-			return nominalFlow
-					* pow((pressureDrop() / nominalPressureDrop), 1 / pressureExponent);
+	protected double computeVolumetricFlow() {
+		return powerLaw.flow(pressureDrop());
+	}
+
+	@Override
+	public double dFlowDPressureDrop() {
+		return powerLaw.derivative(pressureDrop());
+	}
+	
+	@Override
+	void compile(CompiledNetwork network, int element) {
+		network.setPowerLaw(element, powerLaw);
+	}
+
+	@Override
+	public void invalidate() {
+		super.invalidate();
+		if (chiller != null) {
+			chiller.invalidate();
 		}
 	}
 
 	@Override
-	public double heatGain() {
+	protected double computeHeatGain() {
 		return chiller.evaporatorHeat();
 	}
 
@@ -17,12 +17,7 @@
  */
 package dave.hydronic;
 
-import static java.lang.Math.pow;
-
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.core.ReportWriter;
-import willie.core.WillieObject;
 import willie.output.Report;
 
 public class ExchangerSide extends LiquidElement implements ReportWriter{
@@ -31,6 +26,7 @@ public class ExchangerSide extends LiquidElement implements ReportWriter{
 	private double nominalFlow;
 	private double nominalPressureDrop;
 	private double pressureExponent;
+	private PowerLawFlow powerLaw;
 	private HeatExchanger heatExchanger;
 	
 	public ExchangerSide(String name){
@@ -39,11 +35,12 @@ public class ExchangerSide extends LiquidElement implements ReportWriter{
 	}
 	
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		super.read(objectData, objectReferences);
-		nominalFlow = objectData.getReal("Nominal Flow");
-		nominalPressureDrop = objectData.getReal("Nominal Pressure Drop");
-		pressureExponent = objectData.getReal("Pressure Exponent");	
+		nominalFlow = getReal(objectData, "Nominal Flow");
+		nominalPressureDrop = getReal(objectData, "Nominal Pressure Drop");
+		pressureExponent = getReal(objectData, "Pressure Exponent");	
+		powerLaw = new PowerLawFlow(nominalFlow, nominalPressureDrop, pressureExponent);
 		heatExchanger = (HeatExchanger)objectReferences.get(objectData.getAlpha("Heat Exchanger"));
 	}
 
@@ -53,14 +50,18 @@ public class ExchangerSide extends LiquidElement implements ReportWriter{
 	}
 
 	@Override
-	public double volumetricFlow() {
-		if (pressureDrop() < 0) {
-			return -nominalFlow
-					* pow((-pressureDrop() / nominalPressureDrop), 1 / pressureExponent);
-		} else {
-			return nominalFlow
-					* pow((pressureDrop() / nominalPressureDrop), 1 / pressureExponent);
-		}
+	protected double computeVolumetricFlow() {
+		return powerLaw.flow(pressureDrop());
+	}
+	
+	@Override
+	public double dFlowDPressureDrop() {
+		return powerLaw.derivative(pressureDrop());
+	}
+	
+	@Override
+	void compile(CompiledNetwork network, int element) {
+		network.setPowerLaw(element, powerLaw);
 	}
 	
 	public double nominalCapacityRate(){
@@ -68,7 +69,15 @@ public class ExchangerSide extends LiquidElement implements ReportWriter{
 	}
 
 	@Override
-	public double heatGain() {
+	public void invalidate() {
+		super.invalidate();
+		if (heatExchanger != null) {
+			heatExchanger.invalidate();
+		}
+	}
+
+	@Override
+	protected double computeHeatGain() {
 		return heatExchanger.heatTransfer(this);
 	}
 
@@ -0,0 +1,235 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.util.ArrayList;
+import java.util.TreeSet;
+
+// Sparse matrix diag(1/(dt*alpha)) - d(netInflow)/dP over the variable pressure nodes of one
+// hydraulic component, solved with Jacobi preconditioned conjugate gradients.
+public class FlowJacobian {
+
+	private CompiledNetwork network;
+	private int[] nodes;
+	private int size;
+	private int[] rowStart;
+	private int[] columns;
+	private int[] diagonal;
+	private double[] values;
+	private boolean[] pinned;
+	private int[] inletOffset;
+	private int[] outletOffset;
+	private int[] inletPositions;
+	private int[] outletPositions;
+	private double[] r;
+	private double[] z;
+	private double[] p;
+	private double[] q;
+
+	public FlowJacobian(CompiledNetwork network) {
+		this(network, network.variableNodes);
+	}
+
+	public FlowJacobian(CompiledNetwork network, int[] nodes) {
+		this.network = network;
+		this.nodes = nodes;
+		size = nodes.length;
+		int[] rows = new int[network.pressure.length];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = -1;
+		}
+		for (int k = 0; k < size; k++) {
+			rows[nodes[k]] = k;
+		}
+
+		ArrayList<TreeSet<Integer>> pattern = new ArrayList<TreeSet<Integer>>();
+		for (int k = 0; k < size; k++) {
+			int node = nodes[k];
+			TreeSet<Integer> row = new TreeSet<Integer>();
+			row.add(k);
+			for (int j = network.inletStart[node]; j < network.inletStart[node + 1]; j++) {
+				addColumn(row, rows[network.inlet[network.inletElements[j]]]);
+			}
+			for (int j = network.outletStart[node]; j < network.outletStart[node + 1]; j++) {
+				addColumn(row, rows[network.outlet[network.outletElements[j]]]);
+			}
+			pattern.add(row);
+		}
+
+		rowStart = new int[size + 1];
+		for (int k = 0; k < size; k++) {
+			rowStart[k + 1] = rowStart[k] + pattern.get(k).size();
+		}
+		columns = new int[rowStart[size]];
+		values = new double[rowStart[size]];
+		diagonal = new int[size];
+		pinned = new boolean[size];
+		for (int k = 0; k < size; k++) {
+			int position = rowStart[k];
+			for (Integer column : pattern.get(k)) {
+				if (column == k) {
+					diagonal[k] = position;
+				}
+				columns[position++] = column;
+			}
+		}
+
+		// Matrix positions of the far end of every element adjacent to each row, -1 when the
+		// far end is held at a fixed pressure.
+		inletOffset = new int[size + 1];
+		outletOffset = new int[size + 1];
+		for (int k = 0; k < size; k++) {
+			int node = nodes[k];
+			inletOffset[k + 1] = inletOffset[k] + network.inletStart[node + 1] - network.inletStart[node];
+			outletOffset[k + 1] = outletOffset[k] + network.outletStart[node + 1] - network.outletStart[node];
+		}
+		inletPositions = new int[inletOffset[size]];
+		outletPositions = new int[outletOffset[size]];
+		for (int k = 0; k < size; k++) {
+			int node = nodes[k];
+			for (int j = network.inletStart[node], i = inletOffset[k]; j < network.inletStart[node + 1]; j++, i++) {
+				inletPositions[i] = position(k, rows[network.inlet[network.inletElements[j]]]);
+			}
+			for (int j = network.outletStart[node], i = outletOffset[k]; j < network.outletStart[node + 1]; j++, i++) {
+				outletPositions[i] = position(k, rows[network.outlet[network.outletElements[j]]]);
+			}
+		}
+
+		r = new double[size];
+		z = new double[size];
+		p = new double[size];
+		q = new double[size];
+	}
+
+	private void addColumn(TreeSet<Integer> row, int column) {
+		if (column >= 0) {
+			row.add(column);
+		}
+	}
+
+	private int position(int row, int column) {
+		if (column < 0) {
+			return -1;
+		}
+		for (int position = rowStart[row]; position < rowStart[row + 1]; position++) {
+			if (columns[position] == column) {
+				return position;
+			}
+		}
+		return -1;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int nonZeros() {
+		return values.length;
+	}
+
+	// Uses the element flow derivatives last computed by the network.
+	public void assemble(double dtHours) {
+		assemble(dtHours, 0, size);
+	}
+
+	// Every row only writes its own entries, so rows can be assembled independently.
+	public void assemble(double dtHours, int from, int to) {
+		for (int i = rowStart[from]; i < rowStart[to]; i++) {
+			values[i] = 0.0;
+		}
+		for (int k = from; k < to; k++) {
+			int node = nodes[k];
+			values[diagonal[k]] += 1 / (dtHours * network.alpha[node]);
+			for (int j = network.inletStart[node], i = inletOffset[k]; j < network.inletStart[node + 1]; j++, i++) {
+				double derivative = network.flowDerivative[network.inletElements[j]];
+				values[diagonal[k]] += derivative;
+				if (inletPositions[i] >= 0) {
+					values[inletPositions[i]] -= derivative;
+				}
+			}
+			for (int j = network.outletStart[node], i = outletOffset[k]; j < network.outletStart[node + 1]; j++, i++) {
+				double derivative = network.flowDerivative[network.outletElements[j]];
+				values[diagonal[k]] += derivative;
+				if (outletPositions[i] >= 0) {
+					values[outletPositions[i]] -= derivative;
+				}
+			}
+			// With an infinite step, a node cut off by closed elements has an empty row. Its
+			// pressure does not move any flow, so it is pinned where it is.
+			pinned[k] = values[diagonal[k]] == 0.0;
+			if (pinned[k]) {
+				values[diagonal[k]] = 1.0;
+			}
+		}
+	}
+
+	public void solve(double[] b, double[] x) {
+		int n = size;
+		for (int i = 0; i < n; i++) {
+			x[i] = 0.0;
+			r[i] = pinned[i] ? 0.0 : b[i];
+			z[i] = r[i] / values[diagonal[i]];
+			p[i] = z[i];
+		}
+		double bNorm = Math.sqrt(dot(r, r));
+		if (bNorm == 0.0) {
+			return;
+		}
+
+		double rz = dot(r, z);
+		for (int iteration = 0; iteration < 2 * n + 10; iteration++) {
+			multiply(p, q);
+			double step = rz / dot(p, q);
+			for (int i = 0; i < n; i++) {
+				x[i] += step * p[i];
+				r[i] -= step * q[i];
+			}
+			if (Math.sqrt(dot(r, r)) <= 1.0E-12 * bNorm) {
+				return;
+			}
+			for (int i = 0; i < n; i++) {
+				z[i] = r[i] / values[diagonal[i]];
+			}
+			double rzNext = dot(r, z);
+			double beta = rzNext / rz;
+			rz = rzNext;
+			for (int i = 0; i < n; i++) {
+				p[i] = z[i] + beta * p[i];
+			}
+		}
+	}
+
+	private void multiply(double[] x, double[] y) {
+		for (int i = 0; i < size; i++) {
+			double sum = 0.0;
+			for (int position = rowStart[i]; position < rowStart[i + 1]; position++) {
+				sum += values[position] * x[columns[position]];
+			}
+			y[i] = sum;
+		}
+	}
+
+	private double dot(double[] a, double[] b) {
+		double sum = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+}
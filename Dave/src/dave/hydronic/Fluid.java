@@ -21,5 +21,12 @@ public interface Fluid {
 	
 	public double density();
 	public double specificHeat();
+	
+	// Properties at a temperature in Deg-F. The volumetric heat capacity is the product
+	// of the two in Btu/ft3-F.
+	public double density(double temperature);
+	public double specificHeat(double temperature);
+	public double volumetricHeatCapacity(double temperature);
+	public boolean temperatureDependent();
 
 }
@@ -0,0 +1,43 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+// Assigns a fluid to the listed elements. Elements not in any loop carry constant
+// property water.
+public class FluidLoop implements ModelObject {
+
+	private String name;
+
+	public FluidLoop(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		Fluid fluid = Fluids.get(objectData.getAlpha("Fluid"));
+		for (int i = 0; i < objectData.size("Elements"); i++) {
+			((LiquidElement) objectReferences.get(objectData.getAlpha("Elements", i))).setFluid(fluid);
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.util.LinkedHashMap;
+
+// The named fluids available to liquid elements. Glycol mixtures are by mass, tabulated every
+// 20 Deg-F in lb/ft3 and Btu/lb-F from 0 Deg-F. The 20% and 30% mixtures freeze above 0 Deg-F,
+// so their properties are held at the freezing point below it; the freezing points follow ASHRAE.
+public final class Fluids {
+
+	public static final Fluid WATER = new Water();
+
+	private static final LinkedHashMap<String, Fluid> fluids = new LinkedHashMap<String, Fluid>();
+
+	static {
+		fluids.put("Water", WATER);
+		fluids.put("Tabulated Water", new TabulatedFluid(40, 20,
+				new double[] { 62.43, 62.37, 62.22, 62.00, 61.71, 61.38, 61.00, 60.57, 60.11, 59.61, 59.07 },
+				new double[] { 1.004, 1.000, 0.998, 0.998, 0.998, 0.999, 1.001, 1.003, 1.005, 1.008, 1.012 }));
+		fluids.put("Propylene Glycol 20%", new TabulatedFluid(0, 20, 19,
+				new double[] { 64.10, 63.97, 63.79, 63.58, 63.34, 63.05, 62.73, 62.38, 61.98, 61.55, 61.08, 60.58, 60.03 },
+				new double[] { 0.914, 0.921, 0.929, 0.936, 0.943, 0.950, 0.957, 0.964, 0.972, 0.979, 0.986, 0.993, 1.000 }));
+		fluids.put("Propylene Glycol 30%", new TabulatedFluid(0, 20, 9,
+				new double[] { 64.80, 64.62, 64.41, 64.16, 63.88, 63.56, 63.22, 62.83, 62.42, 61.97, 61.48, 60.96, 60.41 },
+				new double[] { 0.878, 0.887, 0.895, 0.904, 0.913, 0.922, 0.930, 0.939, 0.948, 0.957, 0.965, 0.974, 0.983 }));
+		fluids.put("Propylene Glycol 40%", new TabulatedFluid(0, 20, -6,
+				new double[] { 65.43, 65.21, 64.96, 64.67, 64.36, 64.01, 63.63, 63.23, 62.79, 62.32, 61.82, 61.29, 60.73 },
+				new double[] { 0.837, 0.847, 0.857, 0.868, 0.878, 0.888, 0.899, 0.909, 0.919, 0.930, 0.940, 0.950, 0.961 }));
+		fluids.put("Propylene Glycol 50%", new TabulatedFluid(0, 20, -28,
+				new double[] { 66.01, 65.74, 65.45, 65.12, 64.77, 64.40, 63.99, 63.56, 63.10, 62.61, 62.09, 61.55, 60.98 },
+				new double[] { 0.795, 0.807, 0.819, 0.831, 0.843, 0.855, 0.867, 0.879, 0.891, 0.903, 0.915, 0.927, 0.939 }));
+		fluids.put("Ethylene Glycol 20%", new TabulatedFluid(0, 20, 18,
+				new double[] { 64.74, 64.56, 64.34, 64.10, 63.82, 63.50, 63.15, 62.77, 62.35, 61.90, 61.42, 60.90, 60.35 },
+				new double[] { 0.901, 0.908, 0.915, 0.922, 0.928, 0.935, 0.942, 0.949, 0.956, 0.963, 0.970, 0.977, 0.984 }));
+		fluids.put("Ethylene Glycol 30%", new TabulatedFluid(0, 20, 7,
+				new double[] { 65.68, 65.46, 65.21, 64.92, 64.61, 64.26, 63.88, 63.47, 63.03, 62.56, 62.05, 61.52, 60.95 },
+				new double[] { 0.855, 0.864, 0.872, 0.880, 0.889, 0.897, 0.905, 0.914, 0.922, 0.931, 0.939, 0.947, 0.956 }));
+		fluids.put("Ethylene Glycol 40%", new TabulatedFluid(0, 20, -8,
+				new double[] { 66.68, 66.42, 66.13, 65.81, 65.46, 65.08, 64.67, 64.24, 63.77, 63.27, 62.75, 62.19, 61.61 },
+				new double[] { 0.807, 0.817, 0.827, 0.837, 0.847, 0.856, 0.866, 0.876, 0.886, 0.896, 0.906, 0.915, 0.925 }));
+		fluids.put("Ethylene Glycol 50%", new TabulatedFluid(0, 20, -29,
+				new double[] { 67.69, 67.39, 67.06, 66.70, 66.31, 65.90, 65.47, 65.00, 64.51, 63.99, 63.44, 62.87, 62.27 },
+				new double[] { 0.752, 0.764, 0.775, 0.786, 0.797, 0.809, 0.820, 0.831, 0.842, 0.854, 0.865, 0.876, 0.888 }));
+	}
+
+	private Fluids() {
+	}
+
+	public static Fluid get(String name) {
+		Fluid fluid = fluids.get(name);
+		if (fluid == null) {
+			throw new IllegalArgumentException("Unknown fluid: " + name);
+		}
+		return fluid;
+	}
+
+}
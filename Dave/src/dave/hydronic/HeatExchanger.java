@@ -20,13 +20,10 @@ package dave.hydronic;
 import static java.lang.Math.exp;
 import static java.lang.Math.log;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.core.ReportWriter;
-import willie.core.WillieObject;
 import willie.output.Report;
 
-public class HeatExchanger implements WillieObject, ReportWriter {
+public class HeatExchanger implements ModelObject, ReportWriter {
 	
 	private String name;
 	private double nominalCapacity;
@@ -36,6 +33,12 @@ public class HeatExchanger implements WillieObject, ReportWriter {
 	private String arrangement;
 	private ExchangerSide side1;
 	private ExchangerSide side2;
+	private boolean parallel;
+	private double ntu = Double.NaN;
+	private boolean operating;
+	private double effectiveness;
+	private double heatTransfer;
+	private ExchangerSide coldSide;
 
 	public HeatExchanger(String name){
 		this.name = name;
@@ -47,8 +50,9 @@ public class HeatExchanger implements WillieObject, ReportWriter {
 	}
 
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		arrangement = objectData.getAlpha("Arrangement");
+		parallel = arrangement.equals("Parallel");
 		nominalCapacity = objectData.getReal("Nominal Capacity");
 		nominalInletDT = objectData.getReal("Nominal Inlet DT");
 		nominalOutletDT = objectData.getReal("Nominal Outlet DT");
@@ -77,63 +81,42 @@ public class HeatExchanger implements WillieObject, ReportWriter {
 		return (nominalInletDT - nominalOutletDT)/log(nominalInletDT/nominalOutletDT);
 	}
 	
-	private double ntu(){
-		return nominalNtu();
+	// Both sides and the report share one evaluation per step, which is dropped when
+	// either side is invalidated. The nominal NTU needs both sides to have been read,
+	// so it is computed on the first evaluation.
+	void invalidate(){
+		operating = false;
 	}
 	
-	private double effectiveness(){
-		if(arrangement.equals("Parallel")){
-		return (1-exp(-ntu()*(1-cr())))/(1-cr()*exp(-ntu()*(1-cr())));
-		} else {
-			if(cr()>0.9999){
-				return ntu()/(1+ntu());
-			} else {
-				return (1-exp(-ntu()*(1-cr())))/(1-cr()*exp(-ntu()*(1-cr())));
-			}
+	private void operate(){
+		if(operating){
+			return;
 		}
-	}
-	
-	private double cMin(){
-		return Math.min(side1.heatCapacityRate(), side2.heatCapacityRate());
-	}
-	
-	private double cMax(){
-		return Math.max(side1.heatCapacityRate(),side2.heatCapacityRate());
-	}
-	
-	private double cr(){
-		return cMin()/cMax();
-	}
-	
-	private double tH(){
-		return Math.max(side1.inletTemperature(), side2.inletTemperature());
-	}
-	
-	private double tC(){
-		return Math.min(side1.inletTemperature(), side2.inletTemperature());
-	}
-	
-	private ExchangerSide coldSide(){
-		if(side1.inletTemperature() < side2.inletTemperature()){
-			return side1;
-		} else {
-			return side2;
+		if(Double.isNaN(ntu)){
+			ntu = nominalNtu();
 		}
-	}
-	
-	private ExchangerSide hotSide(){
-		if(side1.inletTemperature() > side2.inletTemperature()){
-			return side1;
+		double cMin = Math.min(side1.heatCapacityRate(), side2.heatCapacityRate());
+		double cMax = Math.max(side1.heatCapacityRate(),side2.heatCapacityRate());
+		double cr = cMin/cMax;
+		if(!parallel && cr>0.9999){
+			effectiveness = ntu/(1+ntu);
 		} else {
-			return side2;
+			double e = exp(-ntu*(1-cr));
+			effectiveness = (1-e)/(1-cr*e);
 		}
+		double side1Inlet = side1.inletTemperature();
+		double side2Inlet = side2.inletTemperature();
+		coldSide = side1Inlet < side2Inlet ? side1 : side2;
+		heatTransfer = effectiveness*cMin*(Math.max(side1Inlet, side2Inlet)-Math.min(side1Inlet, side2Inlet));
+		operating = true;
 	}
 	
 	public double heatTransfer(ExchangerSide exchangerSide){
-		if(exchangerSide.equals(coldSide())){
-			return effectiveness()*cMin()*(tH()-tC());
+		operate();
+		if(exchangerSide.equals(coldSide)){
+			return heatTransfer;
 		} else {
-			return -effectiveness()*cMin()*(tH()-tC());
+			return -heatTransfer;
 		}
 	}
 
@@ -147,8 +130,9 @@ public class HeatExchanger implements WillieObject, ReportWriter {
 
 	@Override
 	public void addData(Report report) {
-		report.putReal(effectiveness());
-		report.putReal(heatTransfer(coldSide()));
+		operate();
+		report.putReal(effectiveness);
+		report.putReal(heatTransfer);
 		
 	}	
 
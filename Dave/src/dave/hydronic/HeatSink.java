@@ -17,13 +17,8 @@
  */
 package dave.hydronic;
 
-import static java.lang.Math.pow;
-
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Controller;
 import willie.core.ReportWriter;
-import willie.core.WillieObject;
 import willie.output.Report;
 
 public class HeatSink extends LiquidElement implements ReportWriter{
@@ -32,6 +27,7 @@ public class HeatSink extends LiquidElement implements ReportWriter{
 	private double nominalFlow;
 	private double nominalPressureDrop;
 	private double pressureExponent;	
+	private PowerLawFlow powerLaw;
 	private double nominalDT;
 	private Controller controller;
 	
@@ -41,12 +37,13 @@ public class HeatSink extends LiquidElement implements ReportWriter{
 	}
 
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		super.read(objectData, objectReferences);
-		nominalFlow = objectData.getReal("Nominal Flow");
-		nominalPressureDrop = objectData.getReal("Nominal Pressure Drop");
-		pressureExponent = objectData.getReal("Pressure Exponent");	
-		nominalDT = objectData.getReal("Nominal DT");
+		nominalFlow = getReal(objectData, "Nominal Flow");
+		nominalPressureDrop = getReal(objectData, "Nominal Pressure Drop");
+		pressureExponent = getReal(objectData, "Pressure Exponent");	
+		powerLaw = new PowerLawFlow(nominalFlow, nominalPressureDrop, pressureExponent);
+		nominalDT = getReal(objectData, "Nominal DT");
 		controller = (Controller)objectReferences.get(objectData.getAlpha("Controller"));
 	}
 
@@ -56,14 +53,18 @@ public class HeatSink extends LiquidElement implements ReportWriter{
 	}
 
 	@Override
-	public double volumetricFlow() {
-		if (pressureDrop() < 0) {
-			return -nominalFlow
-					* pow((-pressureDrop() / nominalPressureDrop), 1 / pressureExponent);
-		} else {
-			return nominalFlow
-					* pow((pressureDrop() / nominalPressureDrop), 1 / pressureExponent);
-		}
+	protected double computeVolumetricFlow() {
+		return powerLaw.flow(pressureDrop());
+	}
+	
+	@Override
+	public double dFlowDPressureDrop() {
+		return powerLaw.derivative(pressureDrop());
+	}
+	
+	@Override
+	void compile(CompiledNetwork network, int element) {
+		network.setPowerLaw(element, powerLaw);
 	}
 	
 	private double nominalHeatRemoval(){
@@ -71,8 +72,8 @@ public class HeatSink extends LiquidElement implements ReportWriter{
 	}
 
 	@Override
-	public double heatGain() {
-		return -controller.output()*nominalHeatRemoval();
+	protected double computeHeatGain() {
+		return -output(controller)*nominalHeatRemoval();
 	}
 
 	@Override
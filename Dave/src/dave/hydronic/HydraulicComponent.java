@@ -0,0 +1,100 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.util.Arrays;
+
+// The variable pressure nodes of a compiled network that are coupled through element flows,
+// solved on their own with their own Jacobian.
+public class HydraulicComponent {
+
+	private CompiledNetwork network;
+	private int component;
+	private int[] nodes;
+	private FlowJacobian jacobian;
+	private double[] initialPressures;
+	private double[] residuals;
+	private double[] correction;
+	private int iterations;
+
+	public HydraulicComponent(CompiledNetwork network, int component) {
+		this.network = network;
+		this.component = component;
+		nodes = Arrays.copyOfRange(network.componentNodes, network.componentStart[component], network.componentStart[component + 1]);
+		jacobian = new FlowJacobian(network, nodes);
+		initialPressures = new double[nodes.length];
+		residuals = new double[nodes.length];
+		correction = new double[nodes.length];
+	}
+
+	public int size() {
+		return nodes.length;
+	}
+
+	public int iterations() {
+		return iterations;
+	}
+
+	public boolean active() {
+		for (int node : nodes) {
+			if (network.activeNodes[node]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Backward Euler on every node mass balance, netInflow(p) - (p - pOld)/(dt*alpha) = 0, solved
+	// with Newton-Raphson. The linear solve stays on the calling thread to sum in a fixed order.
+	void solve(final double dtHours, int maxIterations, double tolerance, NetworkPartitioner partitioner) {
+		int n = nodes.length;
+		int elements = network.componentElementCount(component);
+		for (int k = 0; k < n; k++) {
+			initialPressures[k] = network.pressure[nodes[k]];
+		}
+
+		iterations = 0;
+		if (!active()) {
+			return;
+		}
+		while (iterations < maxIterations) {
+			partitioner.run(elements, (from, to) -> network.computeComponentFlows(component, from, to));
+			partitioner.run(n, (from, to) -> {
+				for (int k = from; k < to; k++) {
+					int node = nodes[k];
+					residuals[k] = network.netInflow(node) - (network.pressure[node] - initialPressures[k]) / (dtHours * network.alpha[node]);
+				}
+			});
+			double maxResidual = 0.0;
+			for (int k = 0; k < n; k++) {
+				maxResidual = Math.max(maxResidual, Math.abs(residuals[k]));
+			}
+			if (maxResidual < tolerance) {
+				break;
+			}
+			iterations++;
+			partitioner.run(elements, (from, to) -> network.computeComponentFlowDerivatives(component, from, to));
+			partitioner.run(n, (from, to) -> jacobian.assemble(dtHours, from, to));
+			jacobian.solve(residuals, correction);
+			for (int k = 0; k < n; k++) {
+				network.pressure[nodes[k]] += correction[k];
+			}
+		}
+	}
+
+}
@@ -17,25 +17,53 @@
  */
 package dave.hydronic;
 
+import dave.input.TimeSeriesController;
+import dave.input.TimeSeriesLoad;
+import dave.input.TimeSeriesSource;
+import dave.output.ColumnarOutput;
 import willie.core.ObjectFactory;
 import willie.core.WillieObject;
 
 public class HydronicFactory implements ObjectFactory {
 
+	private ParameterOverrides overrides;
+
+	public HydronicFactory() {
+		this(ParameterOverrides.NONE);
+	}
+
+	public HydronicFactory(ParameterOverrides overrides) {
+		this.overrides = overrides;
+	}
+
 	@Override
 	public WillieObject create(String type, String name) {
+		WillieObject object = createObject(type, name);
+		if (object instanceof Parameterized) {
+			((Parameterized) object).setOverrides(overrides);
+		}
+		return object;
+	}
+
+	private WillieObject createObject(String type, String name) {
 		if(type.equals("A Port")){
 			return new ThreeWayValveAPort(name);
+		} else if (type.equals("Adaptive Step Controller")) {
+			return new AdaptiveStepController(name);
 		} else if (type.equals("B Port")) {
 			return new ThreeWayValveBPort(name);
 		} else if (type.equals("Btu Meter")) {
 			return new BtuMeter(name);
+		} else if (type.equals("Checkpoint")) {
+			return new CheckpointFile(name);
 		} else if (type.equals("Chiller")) {
 			return new Chiller(name);
 		} else if (type.equals("Coil")) {
 			return new Coil(name);
 		} else if (type.equals("Coil Flow Setpoint")) {
 			return new CHWCoilFlowSetpoint(name);
+		} else if (type.equals("Columnar Report")) {
+			return new ColumnarOutput(name);
 		} else if (type.equals("Condenser")) {
 			return new Condenser(name);
 		} else if (type.equals("Constant Liquid Node")) {
@@ -50,6 +78,8 @@ public class HydronicFactory implements ObjectFactory {
 			return new Evaporator(name);
 		} else if (type.equals("Exchanger Side")) {
 			return new ExchangerSide(name);
+		} else if (type.equals("Fluid Loop")) {
+			return new FluidLoop(name);
 		} else if (type.equals("Liquid Flow Sensor")) {
 			return new LiquidFlowSensor(name);
 		}  else if (type.equals("Load Based Controller")) {
@@ -58,12 +88,26 @@ public class HydronicFactory implements ObjectFactory {
 			return new HeatExchanger(name);
 		} else if (type.equals("Heat Sink")) {
 			return new HeatSink(name);
+		} else if (type.equals("Hydronic Network")) {
+			return new HydronicNetwork(name);
 		} else if (type.equals("Max Valve Position Sensor")) {
 			return new MaxValvePositionSensor(name);
 		}  else if (type.equals("Pipe")) {
 			return new Pipe(name);
 		}  else if (type.equals("Pump")) {
 			return new Pump(name);
+		} else if (type.equals("Quiescence Monitor")) {
+			return new QuiescenceMonitor(name);
+		} else if (type.equals("Table Pump")) {
+			return new TablePump(name);
+		} else if (type.equals("Steady State Initializer")) {
+			return new SteadyStateInitializer(name);
+		} else if (type.equals("Time Series Controller")) {
+			return new TimeSeriesController(name);
+		} else if (type.equals("Time Series Load")) {
+			return new TimeSeriesLoad(name);
+		} else if (type.equals("Time Series Source")) {
+			return new TimeSeriesSource(name);
 		}  else if (type.equals("Liquid Temperature Sensor")) {
 			return new LiquidTemperatureSensor(name);
 		} else if (type.equals("Two Way Valve")) {
@@ -0,0 +1,345 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.util.ArrayList;
+
+import willie.core.ReportWriter;
+import willie.core.RequiresTimeManager;
+import willie.core.Simulator;
+import willie.core.TimeManager;
+import willie.output.Report;
+
+public class HydronicNetwork implements ModelObject, Simulator, RequiresTimeManager, ReportWriter, RequiresEndOfRun {
+
+	private static final int EXPLICIT = 0;
+	private static final int IMPLICIT = 1;
+	private static final int ALGEBRAIC = 2;
+
+	private String name;
+	private ArrayList<DynamicLiquidNode> nodes;
+	private int pressureSolver;
+	private int maxIterations;
+	private double tolerance;
+	private int threads;
+	private int hydraulicSubsteps;
+	private NetworkPartitioner partitioner;
+	private TimeManager timeManager;
+	private CompiledNetwork network;
+	private HydraulicComponent[] components;
+	private NetworkPartitioner serial;
+	private AdaptiveStepController stepController;
+	private QuiescenceMonitor quiescenceMonitor;
+	private SteadyStateInitializer initializer;
+	private boolean initialized;
+	private int newtonIterations;
+	private double[] initialState;
+	private double[] temperatures;
+	private double[] pressures;
+
+	public HydronicNetwork(String name) {
+		this.name = name;
+		nodes = new ArrayList<DynamicLiquidNode>();
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		nodes = new ArrayList<DynamicLiquidNode>();
+		for (int i = 0; i < objectData.size("Nodes"); i++) {
+			DynamicLiquidNode node = (DynamicLiquidNode) objectReferences.get(objectData.getAlpha("Nodes", i));
+			node.setNetwork(this);
+			nodes.add(node);
+		}
+		pressureSolver = pressureSolver(objectData.getAlpha("Pressure Solver"));
+		maxIterations = (int) objectData.getReal("Max Iterations");
+		tolerance = objectData.getReal("Tolerance");
+		threads = (int) objectData.getReal("Threads");
+		hydraulicSubsteps = Math.max(1, (int) objectData.getReal("Hydraulic Substeps"));
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public void linkToTimeManager(TimeManager timeManager) {
+		this.timeManager = timeManager;
+	}
+
+	void setStepController(AdaptiveStepController stepController) {
+		this.stepController = stepController;
+	}
+
+	void setQuiescenceMonitor(QuiescenceMonitor quiescenceMonitor) {
+		this.quiescenceMonitor = quiescenceMonitor;
+	}
+
+	void setInitializer(SteadyStateInitializer initializer) {
+		this.initializer = initializer;
+	}
+
+	// Elements are linked to their nodes while the objects are read, so the network is
+	// compiled on the first step once every object has been read.
+	private void compile() {
+		network = new CompiledNetwork(nodes);
+		components = new HydraulicComponent[network.componentCount];
+		for (int c = 0; c < components.length; c++) {
+			components[c] = new HydraulicComponent(network, c);
+		}
+		partitioner = new NetworkPartitioner(threads);
+		serial = new NetworkPartitioner(1);
+		initialState = new double[stateSize()];
+		temperatures = new double[network.nodeCount];
+		pressures = new double[network.variableNodes.length];
+	}
+
+	@Override
+	public void endRun(boolean completed) {
+		if (partitioner != null) {
+			partitioner.shutdown();
+		}
+	}
+
+	private boolean restored() {
+		for (DynamicLiquidNode node : nodes) {
+			if (node.restored()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public CompiledNetwork compiledNetwork() {
+		return network;
+	}
+
+	@Override
+	public void simulateStep1() {
+		long startNanos = 0;
+		if (Instrumentation.ENABLED) {
+			Instrumentation.phase(Instrumentation.SIMULATE);
+			startNanos = System.nanoTime();
+		}
+		if (network == null) {
+			CheckpointFile.beforeFirstStep(timeManager);
+			compile();
+		}
+		LiquidElementMath.beginStep(network.elements());
+		if (initializer != null && !initialized) {
+			if (!restored()) {
+				network.gatherOpenings();
+				initializer.initialize(this);
+			}
+			initialized = true;
+		}
+		newtonIterations = 0;
+		network.pullState();
+		network.gatherOpenings();
+		if (quiescenceMonitor != null) {
+			quiescenceMonitor.update(network, timeManager.dtHours(), pressureSolver != EXPLICIT);
+		}
+		getState(initialState);
+
+		if (stepController == null) {
+			advance(timeManager.dtHours());
+		} else {
+			stepController.integrate(timeManager.dtHours());
+		}
+
+		network.setNextState();
+		if (Instrumentation.ENABLED) {
+			stepEvent(startNanos);
+		}
+		setState(initialState);
+		network.pushState();
+	}
+
+	// The residuals are the largest changes over the step, the state still holds the next values.
+	private void stepEvent(long startNanos) {
+		double maxTemperatureResidual = 0;
+		for (int i = 0; i < network.nodeCount; i++) {
+			maxTemperatureResidual = Math.max(maxTemperatureResidual, Math.abs(network.temperature[i] - initialState[i]));
+		}
+		double maxPressureResidual = 0;
+		for (int k = 0; k < network.variableNodes.length; k++) {
+			maxPressureResidual = Math.max(maxPressureResidual,
+					Math.abs(network.pressure[network.variableNodes[k]] - initialState[network.nodeCount + k]));
+		}
+		Instrumentation.stepEvent(startNanos, System.nanoTime() - startNanos, network.nodeCount, maxPressureResidual,
+				maxTemperatureResidual);
+	}
+
+	// The state is every node temperature followed by every variable node pressure.
+	int stateSize() {
+		return network.nodeCount + network.variableNodes.length;
+	}
+
+	void getState(double[] state) {
+		System.arraycopy(network.temperature, 0, state, 0, network.nodeCount);
+		for (int k = 0; k < network.variableNodes.length; k++) {
+			state[network.nodeCount + k] = network.pressure[network.variableNodes[k]];
+		}
+	}
+
+	void setState(double[] state) {
+		System.arraycopy(state, 0, network.temperature, 0, network.nodeCount);
+		for (int k = 0; k < network.variableNodes.length; k++) {
+			network.pressure[network.variableNodes[k]] = state[network.nodeCount + k];
+		}
+	}
+
+	boolean isPressure(int stateIndex) {
+		return stateIndex >= network.nodeCount;
+	}
+
+	// Explicit temperature update, then an explicit or implicit pressure update over one or more
+	// hydraulic substeps, or the steady pressures for the current openings.
+	void advance(final double dtHours) {
+		network.pushState();
+		if (quiescenceMonitor != null) {
+			network.gatherActiveHeatGains();
+		} else {
+			network.gatherHeatGains();
+		}
+		partitioner.run(network.elementCount, network::computeFlows);
+		partitioner.run(network.nodeCount, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				if (network.activeNodes[i]) {
+					temperatures[i] = network.temperature[i] + network.temperatureChange(i, dtHours);
+				} else {
+					temperatures[i] = network.temperature[i];
+				}
+			}
+		});
+		if (pressureSolver == ALGEBRAIC) {
+			// The limit of an infinitely long backward Euler step: netInflow(p) = 0
+			solvePressures(Double.POSITIVE_INFINITY);
+		} else {
+			double substep = dtHours / hydraulicSubsteps;
+			for (int s = 0; s < hydraulicSubsteps; s++) {
+				if (pressureSolver == IMPLICIT) {
+					solvePressures(substep);
+				} else {
+					if (s > 0) {
+						partitioner.run(network.elementCount, network::computeFlows);
+					}
+					explicitPressures(substep);
+				}
+			}
+		}
+		System.arraycopy(temperatures, 0, network.temperature, 0, network.nodeCount);
+	}
+
+	// The pressures and flows at which every variable node's mass balance closes for the
+	// current openings.
+	void solveSteadyFlows() {
+		solvePressures(Double.POSITIVE_INFINITY);
+		partitioner.run(network.elementCount, network::computeFlows);
+	}
+
+	private void explicitPressures(final double dtHours) {
+		partitioner.run(network.variableNodes.length, (from, to) -> {
+			for (int k = from; k < to; k++) {
+				int node = network.variableNodes[k];
+				if (network.activeNodes[node]) {
+					pressures[k] = network.pressure[node] + dtHours * network.alpha[node] * network.netInflow(node);
+				} else {
+					pressures[k] = network.pressure[node];
+				}
+			}
+		});
+		for (int k = 0; k < network.variableNodes.length; k++) {
+			network.pressure[network.variableNodes[k]] = pressures[k];
+		}
+	}
+
+	// Separate hydraulic loops are solved as independent tasks, a single loop with its kernels
+	// split across the partitioner instead.
+	private void solvePressures(final double dtHours) {
+		if (components.length == 1) {
+			components[0].solve(dtHours, maxIterations, tolerance, partitioner);
+		} else {
+			partitioner.runEach(components.length, (from, to) -> {
+				for (int c = from; c < to; c++) {
+					components[c].solve(dtHours, maxIterations, tolerance, serial);
+				}
+			});
+		}
+		for (HydraulicComponent component : components) {
+			newtonIterations = Math.max(newtonIterations, component.iterations());
+		}
+	}
+
+	public int componentCount() {
+		return network.componentCount;
+	}
+
+	public int componentSize(int component) {
+		return components[component].size();
+	}
+
+	private int largestComponent() {
+		int largest = 0;
+		for (HydraulicComponent component : components) {
+			largest = Math.max(largest, component.size());
+		}
+		return largest;
+	}
+
+	private int smallestComponent() {
+		int smallest = components.length == 0 ? 0 : Integer.MAX_VALUE;
+		for (HydraulicComponent component : components) {
+			smallest = Math.min(smallest, component.size());
+		}
+		return smallest;
+	}
+
+	@Override
+	public void addHeader(Report report) {
+		report.addTitle(name, 4);
+		report.addDataHeader("Components", "");
+		report.addDataHeader("Largest Component", "[Nodes]");
+		report.addDataHeader("Smallest Component", "[Nodes]");
+		report.addDataHeader("Newton Iterations", "");
+	}
+
+	@Override
+	public void addData(Report report) {
+		if (network == null) {
+			compile();
+		}
+		report.putReal(components.length);
+		report.putReal(largestComponent());
+		report.putReal(smallestComponent());
+		report.putReal(newtonIterations);
+	}
+
+	private static int pressureSolver(String pressureSolver) {
+		if (pressureSolver.equals("Explicit")) {
+			return EXPLICIT;
+		} else if (pressureSolver.equals("Implicit")) {
+			return IMPLICIT;
+		} else if (pressureSolver.equals("Algebraic")) {
+			return ALGEBRAIC;
+		} else {
+			throw new IllegalArgumentException("Unknown pressure solver " + pressureSolver + ".");
+		}
+	}
+
+}
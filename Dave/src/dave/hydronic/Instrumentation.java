@@ -0,0 +1,220 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+
+// Opt in counters and timings for the hot paths, switched on with -Ddave.instrumentation=true
+// and kept per run on the thread that steps it.
+public class Instrumentation {
+
+	public static final boolean ENABLED = Boolean.getBoolean("dave.instrumentation");
+
+	public static final int SIMULATE = 0;
+	public static final int POST_STEP = 1;
+	public static final int REPORT = 2;
+	private static final String[] phaseNames = { "Simulate", "Post Step", "Report" };
+	private static final int stepEventCapacity = 100000;
+
+	private static final ThreadLocal<Run> current = new ThreadLocal<Run>() {
+		@Override
+		protected Run initialValue() {
+			return new Run();
+		}
+	};
+
+	// Starts a new run on the calling thread. Keep the run to switch back to it with resume
+	// when several models are stepped on one thread.
+	public static Run startRun() {
+		Run run = new Run();
+		current.set(run);
+		return run;
+	}
+
+	public static void resume(Run run) {
+		current.set(run);
+	}
+
+	public static void countFlow(Class<?> type, boolean evaluated) {
+		ElementCounters elementCounters = current.get().counters(type);
+		elementCounters.flowCalls++;
+		if (evaluated) {
+			elementCounters.flowEvaluations++;
+		}
+	}
+
+	public static void countHeatGain(Class<?> type, boolean evaluated) {
+		ElementCounters elementCounters = current.get().counters(type);
+		elementCounters.heatGainCalls++;
+		if (evaluated) {
+			elementCounters.heatGainEvaluations++;
+		}
+	}
+
+	public static void countControllerOutput(Class<?> type) {
+		current.get().counters(type).controllerOutputCalls++;
+	}
+
+	public static void phase(int phase) {
+		Run run = current.get();
+		if (run.phase != phase) {
+			long now = System.nanoTime();
+			if (run.phase >= 0) {
+				run.nanos[run.phase] += now - run.start;
+			}
+			run.phase = phase;
+			run.start = now;
+			if (phase == POST_STEP || phase == REPORT) {
+				run.phased = true;
+			}
+		}
+	}
+
+	static void stepEvent(long startNanos, long durationNanos, int nodes, double maxPressureResidual,
+			double maxTemperatureResidual) {
+		Run run = current.get();
+		int slot = (int) (run.steps % stepEventCapacity);
+		if (run.stepStart == null) {
+			run.stepStart = new long[stepEventCapacity];
+			run.stepDuration = new long[stepEventCapacity];
+			run.stepNodes = new int[stepEventCapacity];
+			run.stepPressureResidual = new double[stepEventCapacity];
+			run.stepTemperatureResidual = new double[stepEventCapacity];
+		}
+		run.stepStart[slot] = startNanos;
+		run.stepDuration[slot] = durationNanos;
+		run.stepNodes[slot] = nodes;
+		run.stepPressureResidual[slot] = maxPressureResidual;
+		run.stepTemperatureResidual[slot] = maxTemperatureResidual;
+		run.steps++;
+		run.stepNanos += durationNanos;
+		run.maxStepNanos = Math.max(run.maxStepNanos, durationNanos);
+		run.maxPressureResidual = Math.max(run.maxPressureResidual, maxPressureResidual);
+		run.maxTemperatureResidual = Math.max(run.maxTemperatureResidual, maxTemperatureResidual);
+	}
+
+	// Closes the current phase, so the summary includes the time since its last change.
+	public static void endPhase() {
+		phase(-1);
+	}
+
+	public static void reset() {
+		startRun();
+	}
+
+	public static void printSummary() {
+		printSummary("");
+	}
+
+	// The phases are only marked by Model, since a Project steps its objects itself, so runs
+	// driven by a Project leave the phase table out. The summary is printed in one piece, so
+	// runs on other threads do not interleave with it.
+	public static void printSummary(String title) {
+		endPhase();
+		Run run = current.get();
+		StringBuilder summary = new StringBuilder();
+		summary.append(title.length() == 0 ? "INSTRUMENTATION SUMMARY" : "INSTRUMENTATION SUMMARY " + title).append(System.lineSeparator());
+		if (run.phased) {
+			double totalNanos = 0;
+			for (long nanos : run.nanos) {
+				totalNanos += nanos;
+			}
+			for (int i = 0; i < phaseNames.length; i++) {
+				summary.append(String.format("  %-12s%12.3f s%8.1f %%%n", phaseNames[i], run.nanos[i] / 1.0E9,
+						totalNanos == 0 ? 0.0 : 100 * run.nanos[i] / totalNanos));
+			}
+		}
+		if (run.steps > 0) {
+			summary.append(String.format("  Network steps %d, mean %.1f us, max %.1f us%n", run.steps,
+					run.stepNanos / 1.0E3 / run.steps, run.maxStepNanos / 1.0E3));
+			summary.append(String.format("  Largest step change: pressure %.6g, temperature %.6g%n",
+					run.maxPressureResidual, run.maxTemperatureResidual));
+		}
+		summary.append(String.format("  %-28s%16s%16s%16s%16s%16s%n", "Element Type", "Flow Calls", "Flow Evals",
+				"Heat Gain Calls", "Heat Gain Evals", "Output Calls"));
+		for (ElementCounters elementCounters : run.counters.values()) {
+			summary.append(String.format("  %-28s%16d%16d%16d%16d%16d%n", elementCounters.type,
+					elementCounters.flowCalls, elementCounters.flowEvaluations, elementCounters.heatGainCalls,
+					elementCounters.heatGainEvaluations, elementCounters.controllerOutputCalls));
+		}
+		System.out.print(summary);
+		System.out.flush();
+	}
+
+	// Writes the step events still held for the current run, oldest first, tab separated.
+	public static void writeStepEvents(String fileName) throws FileNotFoundException {
+		Run run = current.get();
+		PrintWriter out = new PrintWriter(fileName);
+		out.println("Start [ns]\tDuration [ns]\tNodes\tMax Pressure Change\tMax Temperature Change");
+		long first = Math.max(0, run.steps - stepEventCapacity);
+		for (long step = first; step < run.steps; step++) {
+			int slot = (int) (step % stepEventCapacity);
+			out.println(run.stepStart[slot] + "\t" + run.stepDuration[slot] + "\t" + run.stepNodes[slot]
+					+ "\t" + run.stepPressureResidual[slot] + "\t" + run.stepTemperatureResidual[slot]);
+		}
+		out.close();
+	}
+
+	private static class ElementCounters {
+
+		private String type;
+		private long flowCalls;
+		private long flowEvaluations;
+		private long heatGainCalls;
+		private long heatGainEvaluations;
+		private long controllerOutputCalls;
+
+		private ElementCounters(String type) {
+			this.type = type;
+		}
+	}
+
+	public static class Run {
+
+		private LinkedHashMap<Class<?>, ElementCounters> counters = new LinkedHashMap<Class<?>, ElementCounters>();
+		private int phase = -1;
+		private boolean phased;
+		private long start;
+		private long[] nanos = new long[phaseNames.length];
+		private long steps;
+		private long stepNanos;
+		private long maxStepNanos;
+		private double maxPressureResidual;
+		private double maxTemperatureResidual;
+		private long[] stepStart;
+		private long[] stepDuration;
+		private int[] stepNodes;
+		private double[] stepPressureResidual;
+		private double[] stepTemperatureResidual;
+
+		private Run() {
+		}
+
+		private ElementCounters counters(Class<?> type) {
+			ElementCounters elementCounters = counters.get(type);
+			if (elementCounters == null) {
+				elementCounters = new ElementCounters(type.getSimpleName());
+				counters.put(type, elementCounters);
+			}
+			return elementCounters;
+		}
+	}
+
+}
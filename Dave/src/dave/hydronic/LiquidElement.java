@@ -17,17 +17,26 @@
  */
 package dave.hydronic;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
-import willie.core.WillieObject;
+import willie.controls.Controller;
+import willie.core.RequiresPostStepProcessing;
 
-public abstract class LiquidElement implements WillieObject {
+public abstract class LiquidElement implements ModelObject, RequiresPostStepProcessing, Parameterized {
 	
 	private LiquidNode inletNode;
 	private LiquidNode outletNode;
 	private Fluid fluid;
-	
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	private boolean flowCached;
+	private boolean heatGainCached;
+	private boolean heatAdvectionCached;
+	private boolean stepping;
+	private double flow;
+	private double heatGain;
+	private double heatAdvection;
+	private long cacheHits;
+	private long cacheMisses;
+	private ParameterOverrides overrides = ParameterOverrides.NONE;
+	
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		LiquidNode inletNode = (LiquidNode)objectReferences.get(objectData.getAlpha("Inlet Node"));
 		LiquidNodeLinker.linkToNodeOutlet(this, inletNode);
 		LiquidNode outletNode = (LiquidNode)objectReferences.get(objectData.getAlpha("Outlet Node"));
@@ -35,7 +44,32 @@ public abstract class LiquidElement implements WillieObject {
 	}
 	
 	public LiquidElement(){
-		fluid = new Water();
+		fluid = Fluids.WATER;
+	}
+	
+	@Override
+	public void setOverrides(ParameterOverrides overrides){
+		this.overrides = overrides;
+	}
+	
+	protected double getReal(ObjectData objectData, String field){
+		return overrides.getReal(objectData, name(), field);
+	}
+	
+	protected double[] getReals(ObjectData objectData, String field){
+		double[] values = new double[objectData.size(field)];
+		for(int i=0;i<values.length;i++){
+			values[i] = overrides.getReal(objectData, name(), field, i);
+		}
+		return values;
+	}
+	
+	public void setFluid(Fluid fluid){
+		this.fluid = fluid;
+	}
+	
+	public Fluid fluid(){
+		return fluid;
 	}
 	
 	public void setInletNode(LiquidNode inletNode){
@@ -46,6 +80,14 @@ public abstract class LiquidElement implements WillieObject {
 		this.outletNode = outletNode;
 	}
 	
+	LiquidNode inletNode(){
+		return inletNode;
+	}
+	
+	LiquidNode outletNode(){
+		return outletNode;
+	}
+	
 	public double inletPressure(){
 		return inletNode.pressure();
 	}
@@ -63,11 +105,27 @@ public abstract class LiquidElement implements WillieObject {
 	}
 	
 	public double heatAdvection(){
-		return 60/7.48052*fluid.density()*fluid.specificHeat()* volumetricFlow() * (outletTemperature() - inletTemperature());
+		if(heatAdvectionCached){
+			cacheHits++;
+		} else {
+			heatAdvection = capacityRateFactor()* volumetricFlow() * (outletTemperature() - inletTemperature());
+			heatAdvectionCached = true;
+			cacheMisses++;
+		}
+		return heatAdvection;
+	}
+	
+	// Properties are taken at the mean of the inlet and outlet temperatures.
+	private double volumetricHeatCapacity(){
+		return fluid.volumetricHeatCapacity(0.5*(inletTemperature() + outletTemperature()));
+	}
+	
+	double capacityRateFactor(){
+		return 60/7.48052*volumetricHeatCapacity();
 	}
 	
 	public double heatCapacity(){
-		return fluid.density()*fluid.specificHeat()*volume();
+		return volumetricHeatCapacity()*volume();
 	}
 	
 	public double pressureDrop(){
@@ -87,13 +145,101 @@ public abstract class LiquidElement implements WillieObject {
 	}
 	
 	public double heatCapacityRate(){
-		return 60/7.48052*fluid.density()*fluid.specificHeat()* volumetricFlow();
+		return capacityRateFactor()* volumetricFlow();
+	}
+	
+	public double dFlowDInletPressure(){
+		return dFlowDPressureDrop();
+	}
+	
+	public double dFlowDOutletPressure(){
+		return -dFlowDPressureDrop();
 	}
 	
-	public abstract double volumetricFlow();
+	double opening(){
+		return 1.0;
+	}
+	
+	protected double output(Controller controller){
+		if(Instrumentation.ENABLED){
+			Instrumentation.countControllerOutput(getClass());
+		}
+		return controller.output();
+	}
+	
+	// Flow, heat gain and heat advection are evaluated once per step and reused by both
+	// nodes, the sensors and the reports until the step is committed or the node state
+	// is changed within the step. Values the reports evaluate after the commit are dropped
+	// when the next step begins, since controllers, loads and weather may have moved since.
+	public double volumetricFlow(){
+		if(Instrumentation.ENABLED){
+			Instrumentation.countFlow(getClass(), !flowCached);
+		}
+		if(flowCached){
+			cacheHits++;
+		} else {
+			flow = computeVolumetricFlow();
+			flowCached = true;
+			cacheMisses++;
+		}
+		return flow;
+	}
+	
+	public double heatGain(){
+		if(Instrumentation.ENABLED){
+			Instrumentation.countHeatGain(getClass(), !heatGainCached);
+		}
+		if(heatGainCached){
+			cacheHits++;
+		} else {
+			heatGain = computeHeatGain();
+			heatGainCached = true;
+			cacheMisses++;
+		}
+		return heatGain;
+	}
+	
+	public void invalidate(){
+		flowCached = false;
+		heatGainCached = false;
+		heatAdvectionCached = false;
+	}
+	
+	public void beginStep(){
+		if(!stepping){
+			invalidate();
+			stepping = true;
+		}
+	}
+	
+	@Override
+	public void processPostStep(){
+		invalidate();
+		stepping = false;
+	}
+	
+	public long cacheHits(){
+		return cacheHits;
+	}
+	
+	public long cacheMisses(){
+		return cacheMisses;
+	}
+	
+	protected abstract double computeVolumetricFlow();
+	
+	public abstract double dFlowDPressureDrop();
 
-	public abstract double heatGain();
+	protected abstract double computeHeatGain();
+	
+	// Whether the heat gain depends on more than the element's nodes, flow and opening, such
+	// as a load, the weather or another loop, so it has to be gathered even at rest.
+	protected boolean heatGainHasInputs(){
+		return true;
+	}
 	
 	public abstract double volume();
+	
+	abstract void compile(CompiledNetwork network, int element);
 
 }
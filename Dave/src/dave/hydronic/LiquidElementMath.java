@@ -65,5 +65,35 @@ public class LiquidElementMath {
 		}		
 		return volume;
 	}
+	
+	public static <T extends LiquidElement> void invalidate(ArrayList<T> elements){
+		for(int i=0;i<elements.size();i++){
+			elements.get(i).invalidate();
+		}
+	}
+	
+	public static <T extends LiquidElement> void beginStep(ArrayList<T> elements){
+		for(int i=0;i<elements.size();i++){
+			elements.get(i).beginStep();
+		}
+	}
+	
+	public static <T extends LiquidElement> long sumCacheHits(ArrayList<T> elements){
+		long cacheHits = 0;
+		
+		for(int i=0;i<elements.size();i++){
+			cacheHits += elements.get(i).cacheHits();
+		}		
+		return cacheHits;
+	}
+	
+	public static <T extends LiquidElement> long sumCacheMisses(ArrayList<T> elements){
+		long cacheMisses = 0;
+		
+		for(int i=0;i<elements.size();i++){
+			cacheMisses += elements.get(i).cacheMisses();
+		}		
+		return cacheMisses;
+	}
 
 }
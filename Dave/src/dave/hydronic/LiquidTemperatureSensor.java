@@ -17,12 +17,9 @@
  */
 package dave.hydronic;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Sensor;
-import willie.core.WillieObject;
 
-public class LiquidTemperatureSensor implements WillieObject, Sensor {
+public class LiquidTemperatureSensor implements ModelObject, Sensor {
 	
 	private String name;
 	private LiquidNode node;
@@ -32,7 +29,7 @@ public class LiquidTemperatureSensor implements WillieObject, Sensor {
 	}
 	
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		node = (LiquidNode)objectReferences.get(objectData.getAlpha("Node"));		
 	}
 
@@ -17,18 +17,18 @@
  */
 package dave.hydronic;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Controller;
 import willie.core.RequiresPostStepProcessing;
 import willie.core.RequiresTimeManager;
 import willie.core.TimeManager;
 import willie.core.Timer;
-import willie.core.WillieObject;
 
-public class LoadBasedController implements WillieObject, Controller, RequiresPostStepProcessing, RequiresTimeManager {
+public class LoadBasedController implements ModelObject, Controller, RequiresPostStepProcessing, RequiresTimeManager, Parameterized, Checkpointable {
 
 	private String name;
 	private ArrayList<Double> togglePoints;
@@ -38,6 +38,7 @@ public class LoadBasedController implements WillieObject, Controller, RequiresPo
 	private double minCycleTime;
 	private Timer timer;
 	private TimeManager timeManager;
+	private ParameterOverrides overrides = ParameterOverrides.NONE;
 
 	public LoadBasedController(String name) {
 		this.name = name;
@@ -88,20 +89,25 @@ public class LoadBasedController implements WillieObject, Controller, RequiresPo
 		return loadRange;
 	}
 
+	@Override
+	public void setOverrides(ParameterOverrides overrides) {
+		this.overrides = overrides;
+	}
+
 	@Override
 	public String name() {
 		return name;
 	}
 
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		btuMeter = (BtuMeter) objectReferences.get(objectData.getAlpha("Btu Meter"));
 		togglePoints = new ArrayList<Double>();
 		for (int i = 0; i < objectData.size("Toggle Points"); i++) {
-			togglePoints.add(objectData.getReal("Toggle Points", i));
+			togglePoints.add(overrides.getReal(objectData, name, "Toggle Points", i));
 		}
 
-		minCycleTime = objectData.getReal("Min Cycle Time");
+		minCycleTime = overrides.getReal(objectData, name, "Min Cycle Time");
 		timer.setTime(minCycleTime);
 
 	}
@@ -112,6 +118,20 @@ public class LoadBasedController implements WillieObject, Controller, RequiresPo
 		timer.step(timeManager.dtHours());
 	}
 
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeDouble(output);
+		out.writeDouble(previousOutput);
+		out.writeDouble(timer.getTime());
+	}
+
+	@Override
+	public void readState(DataInput in) throws IOException {
+		output = in.readDouble();
+		previousOutput = in.readDouble();
+		timer.setTime(in.readDouble());
+	}
+
 	@Override
 	public void linkToTimeManager(TimeManager timeManager) {
 		this.timeManager = timeManager;	
@@ -17,14 +17,14 @@
  */
 package dave.hydronic;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Controller;
-import willie.core.WillieObject;
 
-public class LoadBasedController2 implements WillieObject, Controller {
+public class LoadBasedController2 implements ModelObject, Controller, Checkpointable {
 
 	private String name;
 	private ArrayList<Double> togglePoints;
@@ -90,7 +90,7 @@ public class LoadBasedController2 implements WillieObject, Controller {
 	}
 
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		btuMeter = (BtuMeter) objectReferences.get(objectData.getAlpha("Btu Meter"));
 		togglePoints = new ArrayList<Double>();
 		for (int i = 0; i < objectData.size("Toggle Points"); i++) {
@@ -101,4 +101,14 @@ public class LoadBasedController2 implements WillieObject, Controller {
 
 	}
 
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeDouble(output);
+	}
+
+	@Override
+	public void readState(DataInput in) throws IOException {
+		output = in.readDouble();
+	}
+
 }
@@ -19,12 +19,9 @@ package dave.hydronic;
 
 import java.util.ArrayList;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Sensor;
-import willie.core.WillieObject;
 
-public class MaxValvePositionSensor implements WillieObject, Sensor {
+public class MaxValvePositionSensor implements ModelObject, Sensor {
 	
 	private String name;
 	private ArrayList<TwoWayValve> valves;
@@ -52,7 +49,7 @@ public class MaxValvePositionSensor implements WillieObject, Sensor {
 	}
 
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		valves = new ArrayList<TwoWayValve>();
 		for (int i = 0; i < objectData.size("Valves"); i++) {
 			valves.add((TwoWayValve)objectReferences.get(objectData.getAlpha("Valves", i)));
@@ -0,0 +1,95 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Runs a kernel over contiguous index ranges on a fork/join pool. Each index is written by one
+// range with the serial arithmetic, so results do not depend on the number of threads.
+public class NetworkPartitioner {
+
+	private int threads;
+	private ForkJoinPool pool;
+	private final int minRange = 64;
+
+	public NetworkPartitioner(int threads) {
+		this.threads = Math.max(1, threads);
+		if (this.threads > 1) {
+			pool = new ForkJoinPool(this.threads);
+		}
+	}
+
+	public int threads() {
+		return threads;
+	}
+
+	// Stops the pool threads. Kernels run afterwards run serially on the calling thread.
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	public void run(int count, RangeKernel kernel) {
+		if (pool == null || count < 2 * minRange) {
+			kernel.run(0, count);
+		} else {
+			int range = Math.max(minRange, (count + threads - 1) / threads);
+			pool.invoke(new RangeAction(kernel, 0, count, range));
+		}
+	}
+
+	// For a few large tasks, such as whole hydraulic loops, every index is a task of its own.
+	public void runEach(int count, RangeKernel kernel) {
+		if (pool == null || count < 2) {
+			kernel.run(0, count);
+		} else {
+			pool.invoke(new RangeAction(kernel, 0, count, 1));
+		}
+	}
+
+	private static class RangeAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		private RangeKernel kernel;
+		private int from;
+		private int to;
+		private int range;
+
+		RangeAction(RangeKernel kernel, int from, int to, int range) {
+			this.kernel = kernel;
+			this.from = from;
+			this.to = to;
+			this.range = range;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= range) {
+				kernel.run(from, to);
+			} else {
+				int middle = from + (to - from) / 2;
+				invokeAll(new RangeAction(kernel, from, middle, range), new RangeAction(kernel, middle, to, range));
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,34 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+// The fields of one input object. Objects read their inputs through this rather than the
+// parsed input file directly so they can also be built from data held in memory.
+public interface ObjectData {
+
+	public double getReal(String field);
+
+	public double getReal(String field, int index);
+
+	public String getAlpha(String field);
+
+	public String getAlpha(String field, int index);
+
+	public int size(String field);
+
+}
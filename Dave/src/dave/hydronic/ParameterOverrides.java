@@ -0,0 +1,116 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+// Numeric input values that replace the ones in the input file, keyed by object name and
+// field, so a variant of a model can be run without writing a new input file.
+public class ParameterOverrides {
+
+	public static final ParameterOverrides NONE = new ParameterOverrides();
+
+	private HashMap<String, HashMap<String, Double>> values;
+	private HashSet<String> usedKeys;
+
+	public ParameterOverrides() {
+		values = new HashMap<String, HashMap<String, Double>>();
+		usedKeys = new HashSet<String>();
+	}
+
+	public ParameterOverrides(ParameterOverrides overrides) {
+		this();
+		for (String objectName : overrides.values.keySet()) {
+			values.put(objectName, new HashMap<String, Double>(overrides.values.get(objectName)));
+		}
+	}
+
+	public void put(String objectName, String field, double value) {
+		HashMap<String, Double> fields = values.get(objectName);
+		if (fields == null) {
+			fields = new HashMap<String, Double>();
+			values.put(objectName, fields);
+		}
+		fields.put(field, value);
+	}
+
+	public void put(String objectName, String field, int index, double value) {
+		put(objectName, listField(field, index), value);
+	}
+
+	public boolean isEmpty() {
+		return values.isEmpty();
+	}
+
+	public double getReal(ObjectData objectData, String objectName, String field) {
+		Double value = value(objectName, field);
+		return value == null ? objectData.getReal(field) : value;
+	}
+
+	public double getReal(ObjectData objectData, String objectName, String field, int index) {
+		Double value = value(objectName, listField(field, index));
+		return value == null ? objectData.getReal(field, index) : value;
+	}
+
+	private Double value(String objectName, String field) {
+		HashMap<String, Double> fields = values.get(objectName);
+		Double value = fields == null ? null : fields.get(field);
+		if (value != null) {
+			synchronized (usedKeys) {
+				usedKeys.add(key(objectName, field));
+			}
+		}
+		return value;
+	}
+
+	// The overrides no object has read so far, as "Object: Field".
+	public ArrayList<String> unusedKeys() {
+		ArrayList<String> unused = new ArrayList<String>();
+		synchronized (usedKeys) {
+			for (String objectName : values.keySet()) {
+				for (String field : values.get(objectName).keySet()) {
+					if (!usedKeys.contains(key(objectName, field))) {
+						unused.add(key(objectName, field));
+					}
+				}
+			}
+		}
+		return unused;
+	}
+
+	// Every object has been read by the time the first node steps, so an override no object
+	// read is misspelt or names an object the input does not have.
+	public void checkRead() {
+		ArrayList<String> unused = unusedKeys();
+		if (!unused.isEmpty()) {
+			throw new IllegalArgumentException("No object read the parameters " + unused + ".");
+		}
+	}
+
+	private static String key(String objectName, String field) {
+		return objectName + ": " + field;
+	}
+
+	// List entries are addressed as "Field[index]".
+	public static String listField(String field, int index) {
+		return field + "[" + index + "]";
+	}
+
+}
@@ -17,12 +17,7 @@
  */
 package dave.hydronic;
 
-import static java.lang.Math.pow;
-
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.core.ReportWriter;
-import willie.core.WillieObject;
 import willie.output.Report;
 
 public class Pipe extends LiquidElement implements ReportWriter{
@@ -31,6 +26,7 @@ public class Pipe extends LiquidElement implements ReportWriter{
 	private double nominalFlow;
 	private double nominalPressureDrop;
 	private double pressureExponent;
+	private PowerLawFlow powerLaw;
 	private double ua;
 	private double environmentTemperature;
 	
@@ -40,13 +36,14 @@ public class Pipe extends LiquidElement implements ReportWriter{
 	}
 	
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		super.read(objectData, objectReferences);
-		nominalFlow = objectData.getReal("Nominal Flow");
-		nominalPressureDrop = objectData.getReal("Nominal Pressure Drop");
-		pressureExponent = objectData.getReal("Pressure Exponent");
-		ua = objectData.getReal("UA");
-		environmentTemperature = objectData.getReal("Environment Temperature");		
+		nominalFlow = getReal(objectData, "Nominal Flow");
+		nominalPressureDrop = getReal(objectData, "Nominal Pressure Drop");
+		pressureExponent = getReal(objectData, "Pressure Exponent");
+		powerLaw = new PowerLawFlow(nominalFlow, nominalPressureDrop, pressureExponent);
+		ua = getReal(objectData, "UA");
+		environmentTemperature = getReal(objectData, "Environment Temperature");		
 	}
 	
 	@Override
@@ -55,19 +52,30 @@ public class Pipe extends LiquidElement implements ReportWriter{
 	}
 
 	@Override
-	public double volumetricFlow() {
-		if (pressureDrop() < 0) {
-			return -nominalFlow * pow((-pressureDrop() / nominalPressureDrop), (1 / pressureExponent));
-		} else {
-			return nominalFlow * pow((pressureDrop() / nominalPressureDrop), (1 / pressureExponent));
-		}
+	protected double computeVolumetricFlow() {
+		return powerLaw.flow(pressureDrop());
+	}
+
+	@Override
+	public double dFlowDPressureDrop() {
+		return powerLaw.derivative(pressureDrop());
+	}
+	
+	@Override
+	void compile(CompiledNetwork network, int element) {
+		network.setPowerLaw(element, powerLaw);
 	}
 
 	@Override
-	public double heatGain() {
+	protected double computeHeatGain() {
 		return ua * (environmentTemperature - averageFluidTemperature());
 	}
 
+	@Override
+	protected boolean heatGainHasInputs() {
+		return false;
+	}
+
 	@Override
 	public double volume() {
 		return Math.PI*50;
@@ -0,0 +1,100 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import static java.lang.Math.pow;
+import static java.lang.Math.sqrt;
+
+// Flow through an element with a fixed pressure exponent n, flow = c * |dp|^(1/n), with an odd
+// cubic near zero drop so the derivative stays finite for Newton.
+public class PowerLawFlow {
+
+	private static final int SQUARE = 0;
+	private static final int LINEAR = 1;
+	private static final int GENERAL = 2;
+	private static final double REGULARIZATION_RATIO = 1.0E-4;
+
+	private final int law;
+	private final double coefficient;
+	private final double inverseExponent;
+	private final double transitionPressureDrop;
+	private final double transitionFlow;
+	private final double linearTerm;
+	private final double cubicTerm;
+
+	public PowerLawFlow(double nominalFlow, double nominalPressureDrop, double pressureExponent) {
+		if (pressureExponent == 2) {
+			law = SQUARE;
+		} else if (pressureExponent == 1) {
+			law = LINEAR;
+		} else {
+			law = GENERAL;
+		}
+		inverseExponent = 1 / pressureExponent;
+		coefficient = nominalFlow / pow(nominalPressureDrop, inverseExponent);
+		transitionPressureDrop = REGULARIZATION_RATIO * nominalPressureDrop;
+		transitionFlow = root(transitionPressureDrop);
+		// x*(a + b*x^2) with x = dp/transition: a + b = 1 matches the value, a + 3b = 1/n the slope
+		cubicTerm = (inverseExponent - 1) / 2;
+		linearTerm = 1 - cubicTerm;
+	}
+
+	public double flow(double pressureDrop) {
+		double magnitude = Math.abs(pressureDrop);
+		if (magnitude < transitionPressureDrop) {
+			double x = pressureDrop / transitionPressureDrop;
+			return transitionFlow * x * (linearTerm + cubicTerm * x * x);
+		} else if (pressureDrop < 0) {
+			return -root(magnitude);
+		} else {
+			return root(magnitude);
+		}
+	}
+
+	public double derivative(double pressureDrop) {
+		double magnitude = Math.abs(pressureDrop);
+		if (magnitude < transitionPressureDrop) {
+			double x = pressureDrop / transitionPressureDrop;
+			return transitionFlow / transitionPressureDrop * (linearTerm + 3 * cubicTerm * x * x);
+		}
+		switch (law) {
+		case SQUARE:
+			return coefficient / (2 * sqrt(magnitude));
+		case LINEAR:
+			return coefficient;
+		default:
+			return coefficient * inverseExponent * pow(magnitude, inverseExponent - 1);
+		}
+	}
+
+	public double coefficient() {
+		return coefficient;
+	}
+
+	private double root(double magnitude) {
+		switch (law) {
+		case SQUARE:
+			return coefficient * sqrt(magnitude);
+		case LINEAR:
+			return coefficient * magnitude;
+		default:
+			return coefficient * pow(magnitude, inverseExponent);
+		}
+	}
+
+}
@@ -17,31 +17,21 @@
  */
 package dave.hydronic;
 
-import static java.lang.Math.pow;
-
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Controller;
 import willie.core.Conversions;
 import willie.core.ElectricConsumer;
 import willie.core.ReportWriter;
-import willie.core.WillieObject;
 import willie.output.Report;
 
 public class Pump extends LiquidElement implements ReportWriter, ElectricConsumer {
 
 	private String name;
-	private double nominalFlow;
-	private double nominalHead;
-	private double nominalEfficiency;
 	private double motorEfficiency;
 	private Controller controller;
-	private final double c1 = 1.35348296;
-	private final double c2 = 0.0159317;
-	private final double c3 = -0.36941442;
-	private final double c4 = 0.36977392;
-	private final double c5 = 0.84037501;
-	private final double c6 = -0.21014881;
+	private PumpCurve curve;
+	private boolean operating;
+	private double speed;
+	private double electricPower;
 
 	public Pump(String name) {
 		super();
@@ -54,61 +44,74 @@ public class Pump extends LiquidElement implements ReportWriter, ElectricConsume
 	}
 
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		super.read(objectData, objectReferences);
-		nominalFlow = objectData.getReal("Nominal Flow");
-		nominalHead = objectData.getReal("Nominal Head");
-		nominalEfficiency = objectData.getReal("Nominal Efficiency");
-		motorEfficiency = objectData.getReal("Motor Efficiency");
+		curve = readCurve(objectData);
+		motorEfficiency = getReal(objectData, "Motor Efficiency");
 		controller = (Controller) objectReferences.get(objectData.getAlpha("Controller"));
 	}
 
-	@Override
-	public double electricPower() {
-		if (volumetricFlow() == 0) {
-			return 0;
-		} else {
-			double maxSpeedFlowRatio = maxSpeedFlow() / nominalFlow;
-			double maxSpeedPower = (c4 + c5 * maxSpeedFlowRatio + c6 * maxSpeedFlowRatio * maxSpeedFlowRatio)
-					* nominalPower();
-			return maxSpeedPower * controller.output() * controller.output() * controller.output();
+	protected PumpCurve readCurve(ObjectData objectData) {
+		return new QuadraticPumpCurve(getReal(objectData, "Nominal Flow"), getReal(objectData, "Nominal Head"),
+				getReal(objectData, "Nominal Efficiency"), getReal(objectData, "Motor Efficiency"));
+	}
+
+	// Speed, flow and power are evaluated together once per step, and again only when the
+	// state of the step changes.
+	private void operate() {
+		if (!operating) {
+			speed = output(controller);
+			double flow = volumetricFlow();
+			electricPower = curve.electricPower(speed, flow);
+			operating = true;
 		}
 	}
 
-	private double maxSpeedFlow() {
-		double pressureRatio = pressureGain() / (nominalHead * controller.output() * controller.output());
-		return (-c2 - pow((c2 * c2 - 4 * c3 * (c1 - pressureRatio)), 0.5)) / (2 * c3) * nominalFlow;
+	@Override
+	public void invalidate() {
+		super.invalidate();
+		operating = false;
 	}
 
 	@Override
-	public double volumetricFlow() {
-		double fl;
-		if (pressureGain() >= shutoffHead()) {
-			fl =  0.0;
-		} else {
-			double pressureRatio = pressureGain() / (nominalHead * controller.output() * controller.output()); 
-			fl = (-c2 - pow((c2 * c2 - 4 * c3 * (c1 - pressureRatio)), 0.5)) / (2 * c3) * nominalFlow
-					* controller.output();
-		}
-		return fl;
+	public double electricPower() {
+		operate();
+		return electricPower;
 	}
 
 	@Override
-	public double heatGain() {
-		return Conversions.kWToBtu(electricPower() * motorEfficiency);
+	protected double computeVolumetricFlow() {
+		return curve.flow(output(controller), pressureGain());
 	}
 
 	@Override
-	public double volume() {
-		return 25;
+	public double dFlowDPressureDrop() {
+		return curve.flowDerivative(output(controller), pressureGain());
+	}
+	
+	@Override
+	double opening() {
+		return output(controller);
+	}
+	
+	@Override
+	void compile(CompiledNetwork network, int element) {
+		network.setPump(element, curve);
+	}
+
+	@Override
+	protected double computeHeatGain() {
+		return Conversions.kWToBtu(electricPower() * motorEfficiency);
 	}
 
-	private double shutoffHead() {
-		return c1 * nominalHead*controller.output()*controller.output();
+	@Override
+	protected boolean heatGainHasInputs() {
+		return false;
 	}
 
-	private double nominalPower() {
-		return 0.7456 * nominalFlow * nominalHead / nominalEfficiency / motorEfficiency / 3960.0;
+	@Override
+	public double volume() {
+		return 25;
 	}
 	
 	@Override
@@ -125,12 +128,13 @@ public class Pump extends LiquidElement implements ReportWriter, ElectricConsume
 
 	@Override
 	public void addData(Report report) {
+		operate();
 		report.putReal(volumetricFlow());
 		report.putReal(pressureGain());
-		report.putReal(controller.output());
-		report.putReal(electricPower());
+		report.putReal(speed);
+		report.putReal(electricPower);
 		report.putReal(heatGain());
-		report.putReal(shutoffHead());
+		report.putReal(curve.shutoffHead(speed));
 	}
 
 }
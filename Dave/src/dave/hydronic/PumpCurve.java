@@ -0,0 +1,33 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+// A pump's performance at any speed, as a fraction of full speed. Derivatives are taken with
+// respect to the pressure drop across the pump, the negative of its head.
+public interface PumpCurve {
+
+	double flow(double speed, double pressureGain);
+
+	double flowDerivative(double speed, double pressureGain);
+
+	// Electric power in kW at the given speed and flow.
+	double electricPower(double speed, double flow);
+
+	double shutoffHead(double speed);
+
+}
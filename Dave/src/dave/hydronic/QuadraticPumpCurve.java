@@ -0,0 +1,94 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import static java.lang.Math.sqrt;
+
+// The generic curve normalised on a pump's nominal flow, head and efficiency: head / (nominal
+// head * speed^2) and full speed power / nominal power are quadratic in the flow ratio.
+public class QuadraticPumpCurve implements PumpCurve {
+
+	private static final double c1 = 1.35348296;
+	private static final double c2 = 0.0159317;
+	private static final double c3 = -0.36941442;
+	private static final double c4 = 0.36977392;
+	private static final double c5 = 0.84037501;
+	private static final double c6 = -0.21014881;
+
+	private double nominalFlow;
+	private double nominalHead;
+	private double nominalPower;
+	private double speed;
+	private double shutoffHead;
+	private double inverseSpeedHead;
+	private double flowScale;
+	private double derivativeScale;
+
+	public QuadraticPumpCurve(double nominalFlow, double nominalHead, double nominalEfficiency, double motorEfficiency) {
+		this.nominalFlow = nominalFlow;
+		this.nominalHead = nominalHead;
+		nominalPower = 0.7456 * nominalFlow * nominalHead / nominalEfficiency / motorEfficiency / 3960.0;
+		setSpeed(1.0);
+	}
+
+	private void setSpeed(double speed) {
+		this.speed = speed;
+		shutoffHead = c1 * nominalHead * speed * speed;
+		inverseSpeedHead = 1 / (nominalHead * speed * speed);
+		flowScale = nominalFlow * speed / (2 * c3);
+		derivativeScale = nominalFlow / (nominalHead * speed);
+	}
+
+	@Override
+	public double flow(double speed, double pressureGain) {
+		if (speed != this.speed) {
+			setSpeed(speed);
+		}
+		if (speed == 0 || pressureGain >= shutoffHead) {
+			return 0.0;
+		}
+		return (-c2 - sqrt(c2 * c2 - 4 * c3 * (c1 - pressureGain * inverseSpeedHead))) * flowScale;
+	}
+
+	@Override
+	public double flowDerivative(double speed, double pressureGain) {
+		if (speed != this.speed) {
+			setSpeed(speed);
+		}
+		if (speed == 0 || pressureGain >= shutoffHead) {
+			return 0.0;
+		}
+		return derivativeScale / sqrt(c2 * c2 - 4 * c3 * (c1 - pressureGain * inverseSpeedHead));
+	}
+
+	@Override
+	public double electricPower(double speed, double flow) {
+		if (flow == 0) {
+			return 0;
+		}
+		double maxSpeedFlowRatio = flow / (speed * nominalFlow);
+		double maxSpeedPower = (c4 + c5 * maxSpeedFlowRatio + c6 * maxSpeedFlowRatio * maxSpeedFlowRatio) * nominalPower;
+		return maxSpeedPower * speed * speed * speed;
+	}
+
+	@Override
+	public double shutoffHead(double speed) {
+		return c1 * nominalHead * speed * speed;
+	}
+
+}
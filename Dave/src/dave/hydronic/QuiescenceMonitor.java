@@ -0,0 +1,276 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import java.util.Arrays;
+
+import willie.core.ReportWriter;
+import willie.output.Report;
+
+// Tracks which parts of a hydronic network are at rest so the network can skip them, until a
+// neighbour or input moves or the change they were held back from adds up.
+public class QuiescenceMonitor implements ModelObject, ReportWriter {
+
+	private String name;
+	private HydronicNetwork network;
+	private double temperatureTolerance;
+	private double pressureTolerance;
+	private double openingTolerance;
+	private double heatGainTolerance;
+	private double[] lastTemperature;
+	private double[] lastPressure;
+	private double[] lastOpening;
+	private double[] lastHeatGain;
+	private boolean[] changedNodes;
+	private double[] pendingTemperature;
+	private double[] pendingPressure;
+	private double[] temperatureRate;
+	private double[] pressureRate;
+	private boolean[] staleRates;
+	private int[] incidentStart;
+	private int[] incidentElements;
+	private int[] inputElements;
+	private boolean[] solvedNodes;
+	private boolean[] solvedElements;
+	private int skippedNodes;
+	private int skippedElements;
+	private int nodeCount;
+	private int elementCount;
+
+	public QuiescenceMonitor(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		network = (HydronicNetwork) objectReferences.get(objectData.getAlpha("Network"));
+		temperatureTolerance = objectData.getReal("Temperature Tolerance");
+		pressureTolerance = objectData.getReal("Pressure Tolerance");
+		openingTolerance = objectData.getReal("Opening Tolerance");
+		heatGainTolerance = objectData.getReal("Heat Gain Tolerance");
+		network.setQuiescenceMonitor(this);
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	// Called at the start of every step with the committed state pulled into the arrays and
+	// the controller outputs gathered. Only the elements of changed nodes and the elements
+	// whose heat gain has inputs of its own are looked at. The implicit and algebraic solvers
+	// solve the pressures of a whole component once any of its nodes is active.
+	void update(CompiledNetwork compiled, double dtHours, boolean wholeComponents) {
+		int allNodes = compiled.pressure.length;
+		nodeCount = compiled.nodeCount;
+		elementCount = compiled.elementCount;
+		if (lastTemperature == null) {
+			allocate(compiled);
+			for (int i = 0; i < allNodes; i++) {
+				changedNodes[i] = true;
+			}
+		} else {
+			for (int i = 0; i < allNodes; i++) {
+				changedNodes[i] = !(Math.abs(compiled.temperature[i] - lastTemperature[i]) <= temperatureTolerance
+						&& Math.abs(compiled.pressure[i] - lastPressure[i]) <= pressureTolerance);
+			}
+		}
+
+		// Inputs are only taken over when they count as a change, so a slow drift of a
+		// boundary or a controller still wakes its neighbours once it adds up.
+		Arrays.fill(compiled.activeNodes, false);
+		for (int i = 0; i < allNodes; i++) {
+			if (changedNodes[i]) {
+				lastTemperature[i] = compiled.temperature[i];
+				lastPressure[i] = compiled.pressure[i];
+				compiled.activeNodes[i] = true;
+				for (int j = incidentStart[i]; j < incidentStart[i + 1]; j++) {
+					wake(compiled, incidentElements[j]);
+				}
+			}
+		}
+		for (int e = 0; e < elementCount; e++) {
+			if (!(Math.abs(compiled.opening[e] - lastOpening[e]) <= openingTolerance)) {
+				lastOpening[e] = compiled.opening[e];
+				wake(compiled, e);
+			}
+		}
+		for (int e : inputElements) {
+			compiled.gatherHeatGain(e);
+			if (!(Math.abs(compiled.heatGain[e] - lastHeatGain[e]) <= heatGainTolerance)) {
+				lastHeatGain[e] = compiled.heatGain[e];
+				wake(compiled, e);
+			}
+		}
+
+		// A node held at rest is not in balance in general, so the change it would make each
+		// step is summed until it counts. The change is worked out again from this step's
+		// flows and heat gains whenever the node or a neighbour has been active since.
+		for (int i = 0; i < nodeCount; i++) {
+			if (!compiled.activeNodes[i]) {
+				if (staleRates[i]) {
+					updateRates(compiled, i, dtHours);
+				}
+				pendingTemperature[i] += temperatureRate[i];
+				pendingPressure[i] += pressureRate[i];
+				if (!(Math.abs(pendingTemperature[i]) <= temperatureTolerance && Math.abs(pendingPressure[i]) <= pressureTolerance)) {
+					compiled.activeNodes[i] = true;
+				}
+			}
+			if (compiled.activeNodes[i]) {
+				pendingTemperature[i] = 0.0;
+				pendingPressure[i] = 0.0;
+			}
+		}
+
+		for (int e = 0; e < elementCount; e++) {
+			compiled.activeElements[e] = compiled.activeNodes[compiled.inlet[e]] || compiled.activeNodes[compiled.outlet[e]];
+			if (compiled.activeElements[e]) {
+				stale(compiled.inlet[e]);
+				stale(compiled.outlet[e]);
+			}
+		}
+		countSkipped(compiled, wholeComponents);
+	}
+
+	private void allocate(CompiledNetwork compiled) {
+		int allNodes = compiled.pressure.length;
+		lastTemperature = new double[allNodes];
+		lastPressure = new double[allNodes];
+		lastOpening = new double[elementCount];
+		lastHeatGain = new double[elementCount];
+		changedNodes = new boolean[allNodes];
+		pendingTemperature = new double[nodeCount];
+		pendingPressure = new double[nodeCount];
+		temperatureRate = new double[nodeCount];
+		pressureRate = new double[nodeCount];
+		staleRates = new boolean[nodeCount];
+		solvedNodes = new boolean[nodeCount];
+		solvedElements = new boolean[elementCount];
+		Arrays.fill(staleRates, true);
+
+		incidentStart = new int[allNodes + 1];
+		for (int e = 0; e < elementCount; e++) {
+			incidentStart[compiled.inlet[e] + 1]++;
+			incidentStart[compiled.outlet[e] + 1]++;
+		}
+		for (int i = 0; i < allNodes; i++) {
+			incidentStart[i + 1] += incidentStart[i];
+		}
+		incidentElements = new int[incidentStart[allNodes]];
+		int[] next = Arrays.copyOf(incidentStart, allNodes);
+		int inputs = 0;
+		for (int e = 0; e < elementCount; e++) {
+			incidentElements[next[compiled.inlet[e]]++] = e;
+			incidentElements[next[compiled.outlet[e]]++] = e;
+			if (compiled.heatGainInputs[e]) {
+				inputs++;
+			}
+		}
+		inputElements = new int[inputs];
+		for (int e = 0, k = 0; e < elementCount; e++) {
+			if (compiled.heatGainInputs[e]) {
+				inputElements[k++] = e;
+			}
+		}
+	}
+
+	private void wake(CompiledNetwork compiled, int e) {
+		compiled.activeNodes[compiled.inlet[e]] = true;
+		compiled.activeNodes[compiled.outlet[e]] = true;
+	}
+
+	private void stale(int node) {
+		if (node < nodeCount) {
+			staleRates[node] = true;
+		}
+	}
+
+	private void updateRates(CompiledNetwork compiled, int node, double dtHours) {
+		for (int j = compiled.inletStart[node]; j < compiled.inletStart[node + 1]; j++) {
+			int e = compiled.inletElements[j];
+			compiled.computeFlow(e);
+			if (!compiled.heatGainInputs[e]) {
+				compiled.gatherHeatGain(e);
+			}
+		}
+		for (int j = compiled.outletStart[node]; j < compiled.outletStart[node + 1]; j++) {
+			compiled.computeFlow(compiled.outletElements[j]);
+		}
+		temperatureRate[node] = compiled.temperatureChange(node, dtHours);
+		pressureRate[node] = compiled.alpha[node] != 0.0 ? dtHours * compiled.alpha[node] * compiled.netInflow(node) : 0.0;
+		staleRates[node] = false;
+	}
+
+	// Only work that is left out entirely counts as skipped. In a solved component the pressure
+	// of every node and the flow of every element are still computed.
+	private void countSkipped(CompiledNetwork compiled, boolean wholeComponents) {
+		Arrays.fill(solvedNodes, false);
+		Arrays.fill(solvedElements, false);
+		if (wholeComponents) {
+			for (int c = 0; c < compiled.componentCount; c++) {
+				boolean active = false;
+				for (int j = compiled.componentStart[c]; j < compiled.componentStart[c + 1]; j++) {
+					active |= compiled.activeNodes[compiled.componentNodes[j]];
+				}
+				if (active) {
+					for (int j = compiled.componentStart[c]; j < compiled.componentStart[c + 1]; j++) {
+						solvedNodes[compiled.componentNodes[j]] = true;
+					}
+					for (int j = compiled.componentElementStart[c]; j < compiled.componentElementStart[c + 1]; j++) {
+						solvedElements[compiled.componentElements[j]] = true;
+					}
+				}
+			}
+		}
+		skippedNodes = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			if (!compiled.activeNodes[i] && !solvedNodes[i]) {
+				skippedNodes++;
+			}
+		}
+		skippedElements = 0;
+		for (int e = 0; e < elementCount; e++) {
+			if (!compiled.activeElements[e] && !solvedElements[e]) {
+				skippedElements++;
+			}
+		}
+	}
+
+	public double skippedNodeFraction() {
+		return nodeCount == 0 ? 0 : (double) skippedNodes / nodeCount;
+	}
+
+	public double skippedElementFraction() {
+		return elementCount == 0 ? 0 : (double) skippedElements / elementCount;
+	}
+
+	@Override
+	public void addHeader(Report report) {
+		report.addTitle(name, 2);
+		report.addDataHeader("Skipped Nodes", "[Fraction]");
+		report.addDataHeader("Skipped Elements", "[Fraction]");
+	}
+
+	@Override
+	public void addData(Report report) {
+		report.putReal(skippedNodeFraction());
+		report.putReal(skippedElementFraction());
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+import willie.core.ReportWriter;
+import willie.output.Report;
+
+// Replaces the initial state of a hydronic network with its steady state before the first
+// step. A thermal iteration that does not converge keeps the initial temperatures, and a
+// network with a node restored from a checkpoint keeps the restored state.
+public class SteadyStateInitializer implements ModelObject, ReportWriter {
+
+	private String name;
+	private HydronicNetwork network;
+	private int maxIterations;
+	private double tolerance;
+	private double relaxation;
+	private int iterations;
+	private double residual;
+	private boolean converged;
+
+	public SteadyStateInitializer(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		network = (HydronicNetwork) objectReferences.get(objectData.getAlpha("Network"));
+		maxIterations = (int) objectData.getReal("Max Iterations");
+		tolerance = objectData.getReal("Temperature Tolerance");
+		relaxation = objectData.getReal("Relaxation");
+		network.setInitializer(this);
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	void initialize(HydronicNetwork network) {
+		CompiledNetwork compiled = network.compiledNetwork();
+		compiled.pullState();
+		network.solveSteadyFlows();
+		double[] initialTemperatures = new double[compiled.nodeCount];
+		System.arraycopy(compiled.temperature, 0, initialTemperatures, 0, compiled.nodeCount);
+
+		converged = false;
+		for (iterations = 0; iterations < maxIterations && !converged; iterations++) {
+			compiled.pushState();
+			compiled.pullState();
+			compiled.gatherHeatGains();
+			residual = 0;
+			for (int i = 0; i < compiled.nodeCount; i++) {
+				// Convergence is judged on the full distance to the balance, not the relaxed step.
+				double imbalance = compiled.steadyTemperature(i) - compiled.temperature[i];
+				compiled.temperature[i] += relaxation * imbalance;
+				residual = Math.max(residual, Math.abs(imbalance));
+			}
+			converged = residual < tolerance;
+		}
+		if (!converged) {
+			System.arraycopy(initialTemperatures, 0, compiled.temperature, 0, compiled.nodeCount);
+		}
+		compiled.pushState();
+	}
+
+	public int iterations() {
+		return iterations;
+	}
+
+	public boolean converged() {
+		return converged;
+	}
+
+	@Override
+	public void addHeader(Report report) {
+		report.addTitle(name, 3);
+		report.addDataHeader("Iterations", "");
+		report.addDataHeader("Residual", "[Deg-F]");
+		report.addDataHeader("Converged", "");
+	}
+
+	@Override
+	public void addData(Report report) {
+		report.putReal(iterations);
+		report.putReal(residual);
+		report.putReal(converged ? 1 : 0);
+	}
+
+}
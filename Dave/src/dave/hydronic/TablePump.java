@@ -0,0 +1,32 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+// A pump described by manufacturer's full speed points instead of its nominal rating.
+public class TablePump extends Pump {
+
+	public TablePump(String name) {
+		super(name);
+	}
+
+	@Override
+	protected PumpCurve readCurve(ObjectData objectData) {
+		return new TablePumpCurve(getReals(objectData, "Flow"), getReals(objectData, "Head"), getReals(objectData, "Power"));
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+// A manufacturer's full speed curve as points of flow, head and power, linear between points
+// and scaled to other speeds by the affinity laws.
+public class TablePumpCurve implements PumpCurve {
+
+	private double[] flows;
+	private double[] heads;
+	private double[] powers;
+	private double[] flowPerHead;
+	private int segment;
+
+	public TablePumpCurve(double[] flows, double[] heads, double[] powers) {
+		if (flows.length < 2 || heads.length != flows.length || powers.length != flows.length) {
+			throw new IllegalArgumentException("A pump curve needs at least two points of flow, head and power.");
+		}
+		this.flows = flows.clone();
+		this.heads = heads.clone();
+		this.powers = powers.clone();
+		flowPerHead = new double[flows.length - 1];
+		for (int i = 0; i < flowPerHead.length; i++) {
+			if (heads[i + 1] >= heads[i] || flows[i + 1] <= flows[i]) {
+				throw new IllegalArgumentException("Pump curve heads must fall as the flows rise.");
+			}
+			flowPerHead[i] = (flows[i + 1] - flows[i]) / (heads[i + 1] - heads[i]);
+		}
+	}
+
+	@Override
+	public double flow(double speed, double pressureGain) {
+		if (speed == 0) {
+			return 0.0;
+		}
+		double head = pressureGain / (speed * speed);
+		if (head >= heads[0]) {
+			return 0.0;
+		}
+		int i = headSegment(head);
+		return speed * (flows[i] + (head - heads[i]) * flowPerHead[i]);
+	}
+
+	@Override
+	public double flowDerivative(double speed, double pressureGain) {
+		if (speed == 0) {
+			return 0.0;
+		}
+		double head = pressureGain / (speed * speed);
+		if (head >= heads[0]) {
+			return 0.0;
+		}
+		return -flowPerHead[headSegment(head)] / speed;
+	}
+
+	@Override
+	public double electricPower(double speed, double flow) {
+		if (flow == 0) {
+			return 0;
+		}
+		double fullSpeedFlow = flow / speed;
+		int i = flowSegment(fullSpeedFlow);
+		double fraction = (fullSpeedFlow - flows[i]) / (flows[i + 1] - flows[i]);
+		return (powers[i] + fraction * (powers[i + 1] - powers[i])) * speed * speed * speed;
+	}
+
+	@Override
+	public double shutoffHead(double speed) {
+		return heads[0] * speed * speed;
+	}
+
+	private int headSegment(double head) {
+		int i = segment;
+		while (i > 0 && head > heads[i]) {
+			i--;
+		}
+		while (i < flowPerHead.length - 1 && head < heads[i + 1]) {
+			i++;
+		}
+		segment = i;
+		return i;
+	}
+
+	private int flowSegment(double flow) {
+		int i = segment;
+		while (i > 0 && flow < flows[i]) {
+			i--;
+		}
+		while (i < flowPerHead.length - 1 && flow > flows[i + 1]) {
+			i++;
+		}
+		segment = i;
+		return i;
+	}
+
+}
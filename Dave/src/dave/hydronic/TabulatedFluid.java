@@ -0,0 +1,113 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.hydronic;
+
+// Fluid properties tabulated on a uniform temperature grid and clamped at its ends, or at the
+// freezing point when that is above the first point. Instances are immutable and shared by
+// every element that uses the fluid.
+public final class TabulatedFluid implements Fluid {
+
+	private static final double REFERENCE_TEMPERATURE = 60;
+
+	private final double minTemperature;
+	private final double inverseStep;
+	private final double minPosition;
+	private final double maxPosition;
+	private final double[] density;
+	private final double[] densitySlope;
+	private final double[] specificHeat;
+	private final double[] specificHeatSlope;
+	private final double[] heatCapacity;
+	private final double[] heatCapacitySlope;
+	private final double referenceDensity;
+	private final double referenceSpecificHeat;
+
+	public TabulatedFluid(double minTemperature, double step, double[] density, double[] specificHeat) {
+		this(minTemperature, step, Double.NEGATIVE_INFINITY, density, specificHeat);
+	}
+
+	public TabulatedFluid(double minTemperature, double step, double freezingPoint, double[] density, double[] specificHeat) {
+		if (density.length != specificHeat.length || density.length < 2) {
+			throw new IllegalArgumentException("Fluid tables need the same number of points, at least two.");
+		}
+		this.minTemperature = minTemperature;
+		this.inverseStep = 1 / step;
+		this.maxPosition = density.length - 1;
+		this.minPosition = Math.min(maxPosition, Math.max(0, (freezingPoint - minTemperature) * inverseStep));
+		this.density = density.clone();
+		this.specificHeat = specificHeat.clone();
+		heatCapacity = new double[density.length];
+		for (int i = 0; i < density.length; i++) {
+			heatCapacity[i] = density[i] * specificHeat[i];
+		}
+		densitySlope = slopes(this.density);
+		specificHeatSlope = slopes(this.specificHeat);
+		heatCapacitySlope = slopes(heatCapacity);
+		referenceDensity = density(REFERENCE_TEMPERATURE);
+		referenceSpecificHeat = specificHeat(REFERENCE_TEMPERATURE);
+	}
+
+	// The last slope is zero so the top of the table needs no separate case.
+	private static double[] slopes(double[] values) {
+		double[] slopes = new double[values.length];
+		for (int i = 0; i < values.length - 1; i++) {
+			slopes[i] = values[i + 1] - values[i];
+		}
+		return slopes;
+	}
+
+	private double position(double temperature) {
+		return Math.min(maxPosition, Math.max(minPosition, (temperature - minTemperature) * inverseStep));
+	}
+
+	private static double interpolate(double[] values, double[] slopes, double position) {
+		int i = (int) position;
+		return values[i] + (position - i) * slopes[i];
+	}
+
+	@Override
+	public double density() {
+		return referenceDensity;
+	}
+
+	@Override
+	public double specificHeat() {
+		return referenceSpecificHeat;
+	}
+
+	@Override
+	public double density(double temperature) {
+		return interpolate(density, densitySlope, position(temperature));
+	}
+
+	@Override
+	public double specificHeat(double temperature) {
+		return interpolate(specificHeat, specificHeatSlope, position(temperature));
+	}
+
+	@Override
+	public double volumetricHeatCapacity(double temperature) {
+		return interpolate(heatCapacity, heatCapacitySlope, position(temperature));
+	}
+
+	@Override
+	public boolean temperatureDependent() {
+		return true;
+	}
+
+}
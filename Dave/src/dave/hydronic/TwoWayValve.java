@@ -17,13 +17,8 @@
  */
 package dave.hydronic;
 
-import static java.lang.Math.pow;
-
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.controls.Controller;
 import willie.core.ReportWriter;
-import willie.core.WillieObject;
 import willie.output.Report;
 
 public class TwoWayValve extends LiquidElement implements ReportWriter {
@@ -33,7 +28,7 @@ public class TwoWayValve extends LiquidElement implements ReportWriter {
 	private double nominalPressureDrop;
 	private double pressureExponent;
 	private Controller controller;
-	private double nominalConstant;
+	private PowerLawFlow powerLaw;
 	
 	public TwoWayValve(String name){
 		super();
@@ -41,13 +36,13 @@ public class TwoWayValve extends LiquidElement implements ReportWriter {
 	}
 	
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
 		super.read(objectData, objectReferences);
-		nominalFlow = objectData.getReal("Nominal Flow");
-		nominalPressureDrop = objectData.getReal("Nominal Pressure Drop");
-		pressureExponent = objectData.getReal("Pressure Exponent");
+		nominalFlow = getReal(objectData, "Nominal Flow");
+		nominalPressureDrop = getReal(objectData, "Nominal Pressure Drop");
+		pressureExponent = getReal(objectData, "Pressure Exponent");
 		controller = (Controller)objectReferences.get(objectData.getAlpha("Controller"));
-		this.setConstant();		
+		powerLaw = new PowerLawFlow(nominalFlow, nominalPressureDrop, pressureExponent);
 	}
 
 	@Override
@@ -55,24 +50,36 @@ public class TwoWayValve extends LiquidElement implements ReportWriter {
 		return name;
 	}
 	
-	private void setConstant(){
-		nominalConstant = nominalFlow / pow(nominalPressureDrop,1/pressureExponent);
+	@Override
+	protected double computeVolumetricFlow() {
+		return opening()*powerLaw.flow(pressureDrop());
 	}
 
 	@Override
-	public double volumetricFlow() {
-		if(pressureDrop() < 0){
-			return -controller.output()*nominalConstant*pow((-pressureDrop()),(1/pressureExponent));
-		} else {
-			return controller.output()*nominalConstant*pow((pressureDrop()),(1/pressureExponent));
-		}
+	public double dFlowDPressureDrop() {
+		return opening()*powerLaw.derivative(pressureDrop());
+	}
+	
+	@Override
+	double opening(){
+		return output(controller);
+	}
+	
+	@Override
+	void compile(CompiledNetwork network, int element) {
+		network.setValve(element, powerLaw);
 	}
 
 	@Override
-	public double heatGain() {
+	protected double computeHeatGain() {
 		return 0.0;
 	}
 
+	@Override
+	protected boolean heatGainHasInputs() {
+		return false;
+	}
+
 	@Override
 	public double volume() {
 		return Math.PI*3;
@@ -91,11 +98,11 @@ public class TwoWayValve extends LiquidElement implements ReportWriter {
 	public void addData(Report report) {
 		report.putReal(volumetricFlow());
 		report.putReal(pressureDrop());
-		report.putReal(controller.output());		
+		report.putReal(output(controller));		
 	}
 	
 	public double position(){
-		return controller.output();
+		return output(controller);
 	}
 
 }
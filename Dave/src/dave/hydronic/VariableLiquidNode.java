@@ -22,19 +22,19 @@ import static dave.hydronic.LiquidElementMath.sumHeatAdvection;
 import static dave.hydronic.LiquidElementMath.sumHeatCapacity;
 import static dave.hydronic.LiquidElementMath.sumHeatGain;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 
-import booker.building_data.BookerObject;
-import booker.building_data.NamespaceList;
 import willie.core.ReportWriter;
 import willie.core.RequiresPostStepProcessing;
 import willie.core.RequiresTimeManager;
 import willie.core.Simulator;
 import willie.core.TimeManager;
-import willie.core.WillieObject;
 import willie.output.Report;
 
-public class VariableLiquidNode implements LiquidNode, Simulator,WillieObject, ReportWriter,RequiresTimeManager,RequiresPostStepProcessing{
+public class VariableLiquidNode implements DynamicLiquidNode, Simulator,ModelObject, ReportWriter,RequiresTimeManager,RequiresPostStepProcessing,Checkpointable,Parameterized{
 	
 	private String name;
 	private double pressure;
@@ -45,6 +45,11 @@ public class VariableLiquidNode implements LiquidNode, Simulator,WillieObject, R
 	private ArrayList<LiquidElement> inletElements;
 	private ArrayList<LiquidElement> outletElements;
 	private TimeManager timeManager;
+	private HydronicNetwork network;
+	private long steps;
+	private ParameterOverrides overrides = ParameterOverrides.NONE;
+	private boolean started;
+	private boolean restored;
 	
 	public VariableLiquidNode(String name){
 		this.name = name;
@@ -53,10 +58,15 @@ public class VariableLiquidNode implements LiquidNode, Simulator,WillieObject, R
 	}
 	
 	@Override
-	public void read(BookerObject objectData, NamespaceList<WillieObject> objectReferences) {
-		pressure = objectData.getReal("Initial Pressure");
-		temperature = objectData.getReal("Initial Temperature");
-		alpha = objectData.getReal("Alpha");
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		pressure = overrides.getReal(objectData, name, "Initial Pressure");
+		temperature = overrides.getReal(objectData, name, "Initial Temperature");
+		alpha = overrides.getReal(objectData, name, "Alpha");
+	}
+
+	@Override
+	public void setOverrides(ParameterOverrides overrides){
+		this.overrides = overrides;
 	}
 
 	@Override
@@ -92,9 +102,29 @@ public class VariableLiquidNode implements LiquidNode, Simulator,WillieObject, R
 	@Override
 	public void processPostStep() {
 		temperature = nextTemperature;
-		pressure = nextPressure;		
+		pressure = nextPressure;
+		steps++;
+		LiquidElementMath.invalidate(inletElements);
+		LiquidElementMath.invalidate(outletElements);
+	}
+
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeDouble(pressure);
+		out.writeDouble(temperature);
+		out.writeLong(steps);
 	}
 
+	@Override
+	public void readState(DataInput in) throws IOException {
+		pressure = in.readDouble();
+		temperature = in.readDouble();
+		steps = in.readLong();
+		restored = true;
+		LiquidElementMath.invalidate(inletElements);
+		LiquidElementMath.invalidate(outletElements);
+	}
+	
 	@Override
 	public void addHeader(Report report) {
 		report.addTitle(name, 2);
@@ -108,10 +138,74 @@ public class VariableLiquidNode implements LiquidNode, Simulator,WillieObject, R
 		report.putReal(temperature);		
 	}
 	
+	@Override
+	public void setNetwork(HydronicNetwork network){
+		this.network = network;
+	}
+	
+	@Override
+	public void setTemperature(double temperature){
+		this.temperature = temperature;
+	}
+	
+	@Override
+	public void setNextTemperature(double nextTemperature){
+		this.nextTemperature = nextTemperature;
+	}
+	
+	public double temperatureChange(double dtHours){
+		return -dtHours/sumHeatCapacity(inletElements)*(sumHeatAdvection(inletElements) - sumHeatGain(inletElements));
+	}
+	
+	void setPressure(double pressure){
+		this.pressure = pressure;
+	}
+	
+	void setNextPressure(double nextPressure){
+		this.nextPressure = nextPressure;
+	}
+	
+	double alpha(){
+		return alpha;
+	}
+	
+	@Override
+	public ArrayList<LiquidElement> inletElements(){
+		return inletElements;
+	}
+	
+	@Override
+	public ArrayList<LiquidElement> outletElements(){
+		return outletElements;
+	}
+	
+	@Override
+	public long steps(){
+		return steps;
+	}
+	
+	@Override
+	public boolean restored(){
+		return restored;
+	}
+	
+	double netInflow(){
+		return sumFlow(inletElements)-sumFlow(outletElements);
+	}
+	
 	@Override
 	public void simulateStep1(){
-		nextTemperature = temperature - timeManager.dtHours()/sumHeatCapacity(inletElements)*(sumHeatAdvection(inletElements) - sumHeatGain(inletElements));
-		nextPressure = pressure() + timeManager.dtHours()*alpha*(sumFlow(inletElements)-sumFlow(outletElements));		
+		if(!started){
+			overrides.checkRead();
+			CheckpointFile.beforeFirstStep(timeManager);
+			started = true;
+		}
+		if(network == null){
+			LiquidElementMath.beginStep(inletElements);
+			LiquidElementMath.beginStep(outletElements);
+			nextTemperature = temperature + temperatureChange(timeManager.dtHours());
+			nextPressure = pressure() + timeManager.dtHours()*alpha*netInflow();
+		}
 		//nextPressure = pressure() + pressure()*timeManager.dt()*alpha*(sumFlow(inletElements)-sumFlow(outletElements));	
 		//nextPressure = pressure() + pressure()*timeManager.dt()*alpha*(sumFlow(inletElements));	
 	}
@@ -29,4 +29,24 @@ public class Water implements Fluid{
 		return 1.0;
 	}
 
+	@Override
+	public double density(double temperature) {
+		return density();
+	}
+
+	@Override
+	public double specificHeat(double temperature) {
+		return specificHeat();
+	}
+
+	@Override
+	public double volumetricHeatCapacity(double temperature) {
+		return density() * specificHeat();
+	}
+
+	@Override
+	public boolean temperatureDependent() {
+		return false;
+	}
+
 }
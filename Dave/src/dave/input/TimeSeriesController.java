@@ -0,0 +1,56 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.input;
+
+import dave.hydronic.ModelObject;
+import dave.hydronic.ObjectData;
+import dave.hydronic.ObjectReferences;
+import willie.controls.Controller;
+
+// A scheduled controller output or setpoint read from a column of a time series source.
+public class TimeSeriesController implements ModelObject, Controller {
+
+	private String name;
+	private TimeSeriesSource source;
+	private String columnName;
+	private int column = -1;
+
+	public TimeSeriesController(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		source = (TimeSeriesSource) objectReferences.get(objectData.getAlpha("Source"));
+		columnName = objectData.getAlpha("Column");
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public double output() {
+		if (column < 0) {
+			column = source.column(columnName);
+		}
+		return source.value(column);
+	}
+
+}
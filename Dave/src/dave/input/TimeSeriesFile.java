@@ -0,0 +1,146 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.input;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// A binary time series of doubles, one row per interval from a start hour of the year, read
+// through a memory mapped window of rows so files far larger than the heap can be read. Files
+// of the first version have no start hour and start at hour 0.
+public class TimeSeriesFile implements AutoCloseable {
+
+	static final byte[] MAGIC = "DAVETS02".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] FIRST_MAGIC = "DAVETS01".getBytes(StandardCharsets.US_ASCII);
+	static final int HEADER_BYTES = 36;
+	private static final long WINDOW_BYTES = 1L << 28;
+
+	private FileChannel channel;
+	private String[] columns;
+	private long rows;
+	private double intervalHours;
+	private double startHour;
+	private long dataStart;
+	private int windowRows;
+	private long windowStart;
+	private DoubleBuffer window;
+
+	public TimeSeriesFile(String fileName) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(header, 0);
+		byte[] magic = new byte[MAGIC.length];
+		header.get(magic);
+		boolean first = Arrays.equals(magic, FIRST_MAGIC);
+		if (!first && !Arrays.equals(magic, MAGIC)) {
+			throw new IOException(fileName + " is not a time series file.");
+		}
+		columns = new String[header.getInt()];
+		rows = header.getLong();
+		intervalHours = header.getDouble();
+		startHour = first ? 0.0 : header.getDouble();
+		long position = first ? 28 : HEADER_BYTES;
+		ByteBuffer length = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < columns.length; i++) {
+			length.clear();
+			readFully(length, position);
+			ByteBuffer name = ByteBuffer.allocate(length.getInt());
+			readFully(name, position + 4);
+			columns[i] = new String(name.array(), StandardCharsets.UTF_8);
+			position += 4 + name.capacity();
+		}
+		dataStart = (position + 7) / 8 * 8;
+		windowRows = (int) Math.max(1, WINDOW_BYTES / rowBytes());
+		windowStart = -1;
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of time series file.");
+			}
+		}
+		buffer.flip();
+	}
+
+	private long rowBytes() {
+		return 8L * columns.length;
+	}
+
+	public int columnCount() {
+		return columns.length;
+	}
+
+	public String column(int column) {
+		return columns[column];
+	}
+
+	public int column(String name) {
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i].equals(name)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("No column " + name + " in the time series.");
+	}
+
+	public long rows() {
+		return rows;
+	}
+
+	public double intervalHours() {
+		return intervalHours;
+	}
+
+	public double startHour() {
+		return startHour;
+	}
+
+	// Copies the row into values, which holds one value per column.
+	public void readRow(long row, double[] values) throws IOException {
+		if (row < windowStart || row >= windowStart + windowRows || windowStart < 0) {
+			map(row);
+		}
+		window.position((int) ((row - windowStart) * columns.length));
+		window.get(values, 0, columns.length);
+	}
+
+	private void map(long row) throws IOException {
+		if (row < 0 || row >= rows) {
+			throw new IndexOutOfBoundsException("Row " + row + " of a time series with " + rows + " rows.");
+		}
+		long mappedRows = Math.min(windowRows, rows - row);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + row * rowBytes(), mappedRows * rowBytes())
+				.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		windowStart = row;
+	}
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		channel.close();
+	}
+
+}
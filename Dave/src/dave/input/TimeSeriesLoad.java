@@ -0,0 +1,68 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.input;
+
+import dave.hydronic.ModelObject;
+import dave.hydronic.ObjectData;
+import dave.hydronic.ObjectReferences;
+import willie.loads.Load;
+
+// A load read from two columns of a time series source.
+public class TimeSeriesLoad implements ModelObject, Load {
+
+	private String name;
+	private TimeSeriesSource source;
+	private String sensibleColumnName;
+	private String latentColumnName;
+	private int sensibleColumn = -1;
+	private int latentColumn = -1;
+
+	public TimeSeriesLoad(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		source = (TimeSeriesSource) objectReferences.get(objectData.getAlpha("Source"));
+		sensibleColumnName = objectData.getAlpha("Sensible Load Column");
+		latentColumnName = objectData.getAlpha("Latent Load Column");
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	// The source may be read after this load, so its columns are looked up on first use.
+	@Override
+	public double sensibleLoad() {
+		if (sensibleColumn < 0) {
+			sensibleColumn = source.column(sensibleColumnName);
+		}
+		return source.value(sensibleColumn);
+	}
+
+	@Override
+	public double latentLoad() {
+		if (latentColumn < 0) {
+			latentColumn = source.column(latentColumnName);
+		}
+		return source.value(latentColumn);
+	}
+
+}
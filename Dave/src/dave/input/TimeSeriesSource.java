@@ -0,0 +1,146 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.input;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import dave.hydronic.CheckpointFile;
+import dave.hydronic.Checkpointable;
+import dave.hydronic.ModelObject;
+import dave.hydronic.ObjectData;
+import dave.hydronic.ObjectReferences;
+import dave.hydronic.RequiresEndOfRun;
+import willie.core.RequiresPostStepProcessing;
+import willie.core.RequiresTimeManager;
+import willie.core.Simulator;
+import willie.core.TimeManager;
+
+// Serves the rows of a time series file to the objects that read it. The row is found from the
+// hour of the year the run starts at and the steps committed so far, so every reader in a step
+// sees the same row whatever the order of the input, and the reports after it see the row of
+// the time the committed state has reached.
+public class TimeSeriesSource
+		implements ModelObject, Simulator, RequiresPostStepProcessing, RequiresTimeManager, RequiresEndOfRun, Checkpointable {
+
+	private String name;
+	private String fileName;
+	private TimeSeriesFile file;
+	private TimeManager timeManager;
+	private double[] values;
+	private double startHour;
+	private long completedSteps;
+	private long loadedRow;
+	private boolean started;
+
+	public TimeSeriesSource(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		fileName = objectData.getAlpha("File Name");
+		try {
+			file = new TimeSeriesFile(fileName);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open time series " + fileName + ".", e);
+		}
+		startHour = objectData.getReal("Start Hour");
+		if (startHour < file.startHour()) {
+			throw new IllegalArgumentException("Time series " + name + " starts at hour " + startHour + ", before the first row of "
+					+ fileName + " at hour " + file.startHour() + ".");
+		}
+		values = new double[file.columnCount()];
+		loadedRow = -1;
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public void linkToTimeManager(TimeManager timeManager) {
+		this.timeManager = timeManager;
+	}
+
+	public int column(String column) {
+		return file.column(column);
+	}
+
+	public double value(int column) {
+		start();
+		long row = row();
+		if (row != loadedRow) {
+			try {
+				file.readRow(row, values);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not read row " + row + " of time series " + fileName + ".", e);
+			}
+			loadedRow = row;
+		}
+		return values[column];
+	}
+
+	private long row() {
+		// The small offset keeps whole intervals from landing just short of their row.
+		double hours = startHour - file.startHour() + completedSteps * timeManager.dtHours();
+		long row = (long) (hours / file.intervalHours() + 1e-9);
+		return Math.min(row, file.rows() - 1);
+	}
+
+	@Override
+	public void simulateStep1() {
+		start();
+	}
+
+	// A reader can come before the source in the step, so whichever asks first restores the run.
+	private void start() {
+		if (!started) {
+			CheckpointFile.beforeFirstStep(timeManager);
+			started = true;
+		}
+	}
+
+	@Override
+	public void processPostStep() {
+		completedSteps++;
+	}
+
+	@Override
+	public void endRun(boolean completed) {
+		try {
+			file.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not close time series " + fileName + ".", e);
+		}
+	}
+
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeLong(completedSteps);
+	}
+
+	@Override
+	public void readState(DataInput in) throws IOException {
+		completedSteps = in.readLong();
+	}
+
+}
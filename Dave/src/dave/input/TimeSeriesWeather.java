@@ -0,0 +1,57 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.input;
+
+import dave.hydronic.ModelObject;
+import dave.hydronic.ObjectData;
+import dave.hydronic.ObjectReferences;
+import willie.core.Weather;
+
+// Weather read from a column of a time series source. A Project links objects to its own
+// weather, so this is only made by ModelFactory, to be set as the weather of a Model.
+public class TimeSeriesWeather implements ModelObject, Weather {
+
+	private String name;
+	private TimeSeriesSource source;
+	private String wetbulbColumnName;
+	private int wetbulbColumn = -1;
+
+	public TimeSeriesWeather(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		source = (TimeSeriesSource) objectReferences.get(objectData.getAlpha("Source"));
+		wetbulbColumnName = objectData.getAlpha("Wetbulb Column");
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public double wetbulb() {
+		if (wetbulbColumn < 0) {
+			wetbulbColumn = source.column(wetbulbColumnName);
+		}
+		return source.value(wetbulbColumn);
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.input;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Writes a time series file row by row. The row count in the header is filled in on close.
+public class TimeSeriesWriter implements AutoCloseable {
+
+	private FileChannel channel;
+	private int columnCount;
+	private long rows;
+	private ByteBuffer row;
+
+	// Converts a CSV file with a header line of column names into a time series file.
+	// Usage: TimeSeriesWriter input.csv output.ts interval-minutes [start-hour-of-year]
+	public static void main(String[] args) throws IOException {
+		try (BufferedReader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+			String[] columns = in.readLine().split(",");
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = columns[i].trim();
+			}
+			double startHour = args.length > 3 ? Double.parseDouble(args[3]) : 0.0;
+			try (TimeSeriesWriter out = new TimeSeriesWriter(args[1], startHour, Double.parseDouble(args[2]) / 60, columns)) {
+				double[] values = new double[columns.length];
+				String line;
+				while ((line = in.readLine()) != null) {
+					if (line.trim().isEmpty()) {
+						continue;
+					}
+					String[] fields = line.split(",");
+					for (int i = 0; i < values.length; i++) {
+						values[i] = Double.parseDouble(fields[i].trim());
+					}
+					out.writeRow(values);
+				}
+			}
+		}
+	}
+
+	public TimeSeriesWriter(String fileName, double intervalHours, String... columns) throws IOException {
+		this(fileName, 0.0, intervalHours, columns);
+	}
+
+	// The first row holds the values from the start hour of the year.
+	public TimeSeriesWriter(String fileName, double startHour, double intervalHours, String... columns) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		columnCount = columns.length;
+		byte[][] names = new byte[columns.length][];
+		int headerBytes = TimeSeriesFile.HEADER_BYTES;
+		for (int i = 0; i < columns.length; i++) {
+			names[i] = columns[i].getBytes(StandardCharsets.UTF_8);
+			headerBytes += 4 + names[i].length;
+		}
+		ByteBuffer header = ByteBuffer.allocate((headerBytes + 7) / 8 * 8).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(TimeSeriesFile.MAGIC);
+		header.putInt(columns.length);
+		header.putLong(0);
+		header.putDouble(intervalHours);
+		header.putDouble(startHour);
+		for (byte[] name : names) {
+			header.putInt(name.length);
+			header.put(name);
+		}
+		header.position(header.capacity());
+		header.flip();
+		write(header);
+		row = ByteBuffer.allocate(8 * columnCount).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	public void writeRow(double[] values) throws IOException {
+		row.clear();
+		for (int i = 0; i < columnCount; i++) {
+			row.putDouble(values[i]);
+		}
+		row.flip();
+		write(row);
+		rows++;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel.isOpen()) {
+			ByteBuffer count = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+			count.putLong(rows);
+			count.flip();
+			channel.write(count, 12);
+			channel.close();
+		}
+	}
+
+}
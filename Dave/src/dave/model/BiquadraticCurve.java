@@ -0,0 +1,54 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.model;
+
+import dave.hydronic.ModelObject;
+import dave.hydronic.ObjectData;
+import dave.hydronic.ObjectReferences;
+import willie.core.TwoVariableFunction;
+
+// a + b*x + c*x^2 + d*y + e*y^2 + f*x*y, with the coefficients in that order.
+public class BiquadraticCurve implements ModelObject, TwoVariableFunction {
+
+	private String name;
+	private double[] coefficients;
+
+	public BiquadraticCurve(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		coefficients = new double[6];
+		for (int i = 0; i < coefficients.length; i++) {
+			coefficients[i] = objectData.getReal("Coefficients", i);
+		}
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public double evaluate(double x, double y) {
+		return coefficients[0] + coefficients[1] * x + coefficients[2] * x * x + coefficients[3] * y
+				+ coefficients[4] * y * y + coefficients[5] * x * y;
+	}
+
+}
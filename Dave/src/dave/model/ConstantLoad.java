@@ -0,0 +1,60 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.model;
+
+import dave.hydronic.ModelObject;
+import dave.hydronic.ObjectData;
+import dave.hydronic.ObjectReferences;
+import willie.loads.Load;
+
+public class ConstantLoad implements ModelObject, Load {
+
+	private String name;
+	private double sensibleLoad;
+	private double latentLoad;
+
+	public ConstantLoad(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		sensibleLoad = objectData.getReal("Sensible Load");
+		latentLoad = objectData.getReal("Latent Load");
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public double sensibleLoad() {
+		return sensibleLoad;
+	}
+
+	@Override
+	public double latentLoad() {
+		return latentLoad;
+	}
+
+	public void setSensibleLoad(double sensibleLoad) {
+		this.sensibleLoad = sensibleLoad;
+	}
+
+}
@@ -0,0 +1,40 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.model;
+
+import willie.core.TimeManager;
+
+public class FixedTimeManager implements TimeManager {
+
+	private double dtHours;
+
+	public FixedTimeManager(double dtHours) {
+		this.dtHours = dtHours;
+	}
+
+	@Override
+	public double dtHours() {
+		return dtHours;
+	}
+
+	@Override
+	public double dt() {
+		return dtHours * 3600;
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import dave.hydronic.Checkpoint;
+import dave.hydronic.EndOfRun;
+import dave.hydronic.HydronicFactory;
+import dave.hydronic.Instrumentation;
+import dave.hydronic.ModelObject;
+import dave.hydronic.ObjectReferences;
+import dave.output.AggregatingReport;
+import willie.core.ObjectFactory;
+import willie.core.ReportWriter;
+import willie.core.RequiresPostStepProcessing;
+import willie.core.RequiresTimeManager;
+import willie.core.RequiresWeather;
+import willie.core.Simulator;
+import willie.core.TimeManager;
+import willie.core.Weather;
+import willie.core.WillieObject;
+import willie.output.Report;
+
+// A model built and stepped in memory without an input file or a Project: every simulator,
+// then every post step process, then the reports.
+public class Model implements ObjectReferences {
+
+	private ArrayList<ObjectFactory> factories;
+	private TimeManager timeManager;
+	private Weather weather;
+	private LinkedHashMap<String, WillieObject> objects;
+	private LinkedHashMap<String, ModelObjectData> objectData;
+	private ArrayList<Simulator> simulators;
+	private ArrayList<RequiresPostStepProcessing> postStepProcesses;
+	private ArrayList<Report> reports;
+	private Instrumentation.Run instrumentation;
+
+	public Model(ArrayList<ObjectFactory> factories, TimeManager timeManager, Weather weather) {
+		this.factories = factories;
+		this.timeManager = timeManager;
+		this.weather = weather;
+		objects = new LinkedHashMap<String, WillieObject>();
+		objectData = new LinkedHashMap<String, ModelObjectData>();
+		reports = new ArrayList<Report>();
+		if (Instrumentation.ENABLED) {
+			instrumentation = Instrumentation.startRun();
+		}
+	}
+
+	// Replaces the weather objects are linked to, which has to happen before read().
+	public void setWeather(Weather weather) {
+		this.weather = weather;
+	}
+
+	// A model of hydronic objects and stand-ins at a fixed time step and constant wetbulb.
+	public static Model hydronicModel(double dtHours, double wetbulb) {
+		ArrayList<ObjectFactory> factories = new ArrayList<ObjectFactory>();
+		factories.add(new HydronicFactory());
+		factories.add(new ModelFactory());
+		return new Model(factories, new FixedTimeManager(dtHours), new ConstantWeather(wetbulb));
+	}
+
+	public ModelObjectData add(String type, String name) {
+		WillieObject object = null;
+		for (int i = 0; i < factories.size() && object == null; i++) {
+			object = factories.get(i).create(type, name);
+		}
+		if (object == null) {
+			throw new IllegalArgumentException("No factory creates objects of type " + type + ".");
+		}
+		if (!(object instanceof ModelObject)) {
+			throw new IllegalArgumentException(type + " objects can only be read from an input file.");
+		}
+		ModelObjectData data = new ModelObjectData(name);
+		objects.put(name, object);
+		objectData.put(name, data);
+		return data;
+	}
+
+	public void read() {
+		for (String name : objectData.keySet()) {
+			((ModelObject) objects.get(name)).read(objectData.get(name), this);
+		}
+		simulators = new ArrayList<Simulator>();
+		postStepProcesses = new ArrayList<RequiresPostStepProcessing>();
+		for (WillieObject object : objects.values()) {
+			if (object instanceof RequiresTimeManager) {
+				((RequiresTimeManager) object).linkToTimeManager(timeManager);
+			}
+			if (object instanceof RequiresWeather) {
+				((RequiresWeather) object).linkToWeather(weather);
+			}
+			if (object instanceof Simulator) {
+				simulators.add((Simulator) object);
+			}
+			if (object instanceof RequiresPostStepProcessing) {
+				postStepProcesses.add((RequiresPostStepProcessing) object);
+			}
+		}
+	}
+
+	// Adds the headers of every report writer in the model to the report, which then
+	// receives their data after every step.
+	public void addReport(Report report) {
+		for (WillieObject object : objects.values()) {
+			if (object instanceof ReportWriter) {
+				((ReportWriter) object).addHeader(report);
+			}
+		}
+		reports.add(report);
+	}
+
+	public void step() {
+		if (Instrumentation.ENABLED) {
+			Instrumentation.resume(instrumentation);
+			Instrumentation.phase(Instrumentation.SIMULATE);
+		}
+		for (Simulator simulator : simulators) {
+			simulator.simulateStep1();
+		}
+		if (Instrumentation.ENABLED) {
+			Instrumentation.phase(Instrumentation.POST_STEP);
+		}
+		for (RequiresPostStepProcessing postStepProcess : postStepProcesses) {
+			postStepProcess.processPostStep();
+		}
+		if (Instrumentation.ENABLED) {
+			Instrumentation.phase(Instrumentation.REPORT);
+		}
+		for (Report report : reports) {
+			if (report instanceof AggregatingReport && !((AggregatingReport) report).collect()) {
+				continue;
+			}
+			for (WillieObject object : objects.values()) {
+				if (object instanceof ReportWriter) {
+					((ReportWriter) object).addData(report);
+				}
+			}
+		}
+	}
+
+	// Releases what the objects hold for the run, once the last step has been taken.
+	public void endRun() {
+		endRun(true);
+	}
+
+	public void endRun(boolean completed) {
+		EndOfRun.endRun(objects.values(), completed);
+	}
+
+	public void writeCheckpoint(String fileName) throws IOException {
+		Checkpoint.write(fileName, objects.values());
+	}
+
+	// Returns the number of objects restored.
+	public int restoreCheckpoint(String fileName) throws IOException {
+		return Checkpoint.restore(fileName, objects.values());
+	}
+
+	@Override
+	public WillieObject get(String name) {
+		return objects.get(name);
+	}
+
+	public ArrayList<WillieObject> objects() {
+		return new ArrayList<WillieObject>(objects.values());
+	}
+
+}
@@ -0,0 +1,42 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.model;
+
+import dave.input.TimeSeriesWeather;
+import willie.core.ObjectFactory;
+import willie.core.WillieObject;
+
+// Stand-ins for the controls and loads a model would otherwise get from other libraries.
+public class ModelFactory implements ObjectFactory {
+
+	@Override
+	public WillieObject create(String type, String name) {
+		if (type.equals("Biquadratic Curve")) {
+			return new BiquadraticCurve(name);
+		} else if (type.equals("Constant Controller")) {
+			return new ConstantController(name);
+		} else if (type.equals("Constant Load")) {
+			return new ConstantLoad(name);
+		} else if (type.equals("Time Series Weather")) {
+			return new TimeSeriesWeather(name);
+		} else {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.model;
+
+import java.util.HashMap;
+
+import dave.hydronic.ObjectData;
+
+// Input fields held in memory, with the same names the input files use.
+public class ModelObjectData implements ObjectData {
+
+	private String name;
+	private HashMap<String, double[]> reals;
+	private HashMap<String, String[]> alphas;
+
+	public ModelObjectData(String name) {
+		this.name = name;
+		reals = new HashMap<String, double[]>();
+		alphas = new HashMap<String, String[]>();
+	}
+
+	public ModelObjectData put(String field, double... values) {
+		reals.put(field, values.clone());
+		return this;
+	}
+
+	public ModelObjectData put(String field, String... values) {
+		alphas.put(field, values.clone());
+		return this;
+	}
+
+	@Override
+	public double getReal(String field) {
+		return getReal(field, 0);
+	}
+
+	@Override
+	public double getReal(String field, int index) {
+		return reals(field)[index];
+	}
+
+	@Override
+	public String getAlpha(String field) {
+		return getAlpha(field, 0);
+	}
+
+	@Override
+	public String getAlpha(String field, int index) {
+		return alphas(field)[index];
+	}
+
+	@Override
+	public int size(String field) {
+		if (reals.containsKey(field)) {
+			return reals.get(field).length;
+		}
+		return alphas(field).length;
+	}
+
+	private double[] reals(String field) {
+		double[] values = reals.get(field);
+		if (values == null) {
+			throw new IllegalArgumentException("Object " + name + " has no real field " + field + ".");
+		}
+		return values;
+	}
+
+	private String[] alphas(String field) {
+		String[] values = alphas.get(field);
+		if (values == null) {
+			throw new IllegalArgumentException("Object " + name + " has no alpha field " + field + ".");
+		}
+		return values;
+	}
+
+}
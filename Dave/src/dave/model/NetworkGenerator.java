@@ -0,0 +1,227 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.model;
+
+import java.util.ArrayList;
+
+// Builds a primary/secondary chilled water plant of any size into a model, with names prefixed
+// so any number of plants can share a model.
+public class NetworkGenerator {
+
+	private static final double BRANCH_FLOW = 10.0;
+	private static final double BRANCH_LOAD = 50000.0;
+
+	private String prefix;
+	private int chillers;
+	private int secondaryLoops;
+	private int risersPerLoop;
+	private int branchesPerRiser;
+	private String pressureSolver;
+	private int threads;
+	private double alpha;
+	private ArrayList<String> variableNodes;
+	private int elementCount;
+
+	public NetworkGenerator() {
+		prefix = "";
+		chillers = 1;
+		secondaryLoops = 1;
+		risersPerLoop = 1;
+		branchesPerRiser = 4;
+		threads = 1;
+		alpha = 0.5;
+	}
+
+	public void setPrefix(String prefix) {
+		this.prefix = prefix;
+	}
+
+	public void setChillers(int chillers) {
+		this.chillers = chillers;
+	}
+
+	public void setSecondaryLoops(int secondaryLoops) {
+		this.secondaryLoops = secondaryLoops;
+	}
+
+	public void setRisersPerLoop(int risersPerLoop) {
+		this.risersPerLoop = risersPerLoop;
+	}
+
+	public void setBranchesPerRiser(int branchesPerRiser) {
+		this.branchesPerRiser = branchesPerRiser;
+	}
+
+	// With no pressure solver every variable node steps itself, otherwise the nodes are
+	// collected into a Hydronic Network.
+	public void setPressureSolver(String pressureSolver) {
+		this.pressureSolver = pressureSolver;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public void setAlpha(double alpha) {
+		this.alpha = alpha;
+	}
+
+	// Spreads a number of coils over risers of about twenty floors, secondary loops of about
+	// ten risers and chillers of about five hundred coils, so headers grow with the plant.
+	public void setCoils(int coils) {
+		int risers = Math.max(1, (coils + 19) / 20);
+		secondaryLoops = Math.max(1, risers / 10);
+		risersPerLoop = (risers + secondaryLoops - 1) / secondaryLoops;
+		branchesPerRiser = Math.max(1, (coils + secondaryLoops * risersPerLoop - 1) / (secondaryLoops * risersPerLoop));
+		chillers = Math.max(1, (coils + 499) / 500);
+	}
+
+	public int coilCount() {
+		return secondaryLoops * risersPerLoop * branchesPerRiser;
+	}
+
+	public int nodeCount() {
+		return variableNodes.size();
+	}
+
+	public int elementCount() {
+		return elementCount;
+	}
+
+	public Model generate(double dtHours) {
+		Model model = Model.hydronicModel(dtHours, 65);
+		addTo(model);
+		model.read();
+		return model;
+	}
+
+	public void addTo(Model model) {
+		variableNodes = new ArrayList<String>();
+		elementCount = 0;
+
+		double totalLoad = BRANCH_LOAD * coilCount();
+		double primaryFlow = 1.1 * BRANCH_FLOW * coilCount();
+		double chillerTons = totalLoad / 12000 / chillers;
+		double condenserFlow = 3.0 * chillerTons;
+
+		model.add("Constant Controller", prefix + "Pump Speed").put("Output", 1.0);
+		model.add("Constant Controller", prefix + "Valve Position").put("Output", 0.7);
+		model.add("Constant Controller", prefix + "Chiller Output").put("Output", 1.0);
+		model.add("Constant Controller", prefix + "Tower Fan").put("Output", 1.0);
+		model.add("Constant Load", prefix + "Coil Load").put("Sensible Load", BRANCH_LOAD).put("Latent Load", 0.0);
+		model.add("Biquadratic Curve", prefix + "Flat Curve").put("Coefficients", 1.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+
+		model.add("Constant Pressure Liquid Node", prefix + "Primary Tank").put("Pressure", 10.0).put("Initial Temperature", 45.0);
+		node(model, "Primary Supply", 30.0, 45.0);
+		node(model, "Primary Return", 12.0, 55.0);
+		for (int k = 0; k < chillers; k++) {
+			node(model, "Evaporator Inlet " + k, 40.0, 55.0);
+			pump(model, "Primary Pump " + k, "Primary Tank", "Evaporator Inlet " + k, primaryFlow / chillers, 40.0);
+			powerLaw(model, "Evaporator", "Evaporator " + k, "Evaporator Inlet " + k, "Primary Supply", primaryFlow / chillers, 10.0);
+			powerLaw(model, "Pipe", "Primary Return Pipe " + k, "Primary Return", "Primary Tank", primaryFlow / chillers, 2.0)
+					.put("UA", 0.0).put("Environment Temperature", 75.0);
+
+			model.add("Constant Pressure Liquid Node", prefix + "Condenser Tank " + k).put("Pressure", 10.0)
+					.put("Initial Temperature", 85.0);
+			node(model, "Condenser Inlet " + k, 40.0, 85.0);
+			node(model, "Tower Inlet " + k, 30.0, 95.0);
+			pump(model, "Condenser Pump " + k, "Condenser Tank " + k, "Condenser Inlet " + k, condenserFlow, 40.0);
+			powerLaw(model, "Condenser", "Condenser " + k, "Condenser Inlet " + k, "Tower Inlet " + k, condenserFlow, 10.0);
+			model.add("Cooling Tower", prefix + "Cooling Tower " + k).put("Inlet Node", prefix + "Tower Inlet " + k)
+					.put("Outlet Node", prefix + "Condenser Tank " + k).put("Nominal Flow", condenserFlow)
+					.put("Design Wetbulb", 78.0).put("Design Approach", 7.0).put("Design Range", 10.0)
+					.put("Fan Off Flow Pct", 0.1).put("Design Fan Power", 0.05 * chillerTons)
+					.put("Nominal Friction Head", 5.0).put("Static Head", 10.0).put("Pressure Exponent", 2.0)
+					.put("Controller", prefix + "Tower Fan");
+			elementCount++;
+
+			model.add("Chiller", prefix + "Chiller " + k).put("Nominal Capacity", chillerTons).put("Nominal Efficiency", 0.6)
+					.put("Capacity f(CHW,ECT)", prefix + "Flat Curve").put("EIR f(CHW,ECT)", prefix + "Flat Curve")
+					.put("EIR f(PLR,DT)", prefix + "Flat Curve").put("Controller", prefix + "Chiller Output")
+					.put("Evaporator", prefix + "Evaporator " + k).put("Condenser", prefix + "Condenser " + k);
+		}
+		powerLaw(model, "Pipe", "Decoupler", "Primary Supply", "Primary Return", 0.1 * primaryFlow, 5.0)
+				.put("UA", 0.0).put("Environment Temperature", 75.0);
+
+		for (int j = 0; j < secondaryLoops; j++) {
+			addSecondaryLoop(model, "Loop " + j);
+		}
+
+		if (pressureSolver != null) {
+			model.add("Hydronic Network", prefix + "Network").put("Nodes", variableNodes.toArray(new String[0]))
+					.put("Pressure Solver", pressureSolver).put("Max Iterations", 20.0).put("Tolerance", 1.0E-6)
+					.put("Threads", (double) threads).put("Hydraulic Substeps", 1.0);
+		}
+	}
+
+	private void addSecondaryLoop(Model model, String loop) {
+		double loopFlow = BRANCH_FLOW * risersPerLoop * branchesPerRiser;
+		double riserFlow = BRANCH_FLOW * branchesPerRiser;
+		double segmentPressureDrop = 5.0 / branchesPerRiser;
+
+		node(model, loop + " Supply", 50.0, 45.0);
+		node(model, loop + " Return", 15.0, 55.0);
+		pump(model, loop + " Pump", "Primary Supply", loop + " Supply", loopFlow, 60.0);
+		powerLaw(model, "Pipe", loop + " Return Pipe", loop + " Return", "Primary Return", loopFlow, 2.0)
+				.put("UA", 0.0).put("Environment Temperature", 75.0);
+
+		for (int r = 0; r < risersPerLoop; r++) {
+			String riser = loop + " Riser " + r;
+			String supply = loop + " Supply";
+			String ret = loop + " Return";
+			for (int i = 0; i < branchesPerRiser; i++) {
+				String floor = riser + " Floor " + i;
+				double flow = riserFlow - BRANCH_FLOW * i;
+				node(model, floor + " Supply", 45.0 - segmentPressureDrop * i, 45.0);
+				node(model, floor + " Coil Outlet", 30.0, 55.0);
+				node(model, floor + " Return", 20.0 + segmentPressureDrop * i, 55.0);
+				powerLaw(model, "Pipe", floor + " Supply Riser", supply, floor + " Supply", flow, segmentPressureDrop)
+						.put("UA", 1.0).put("Environment Temperature", 75.0);
+				powerLaw(model, "Pipe", floor + " Return Riser", floor + " Return", ret, flow, segmentPressureDrop)
+						.put("UA", 1.0).put("Environment Temperature", 75.0);
+				powerLaw(model, "Coil", floor + " Coil", floor + " Supply", floor + " Coil Outlet", BRANCH_FLOW, 5.0)
+						.put("Nominal Capacity", 1.2 * BRANCH_LOAD).put("Load", prefix + "Coil Load");
+				powerLaw(model, "Two Way Valve", floor + " Valve", floor + " Coil Outlet", floor + " Return", BRANCH_FLOW, 5.0)
+						.put("Controller", prefix + "Valve Position");
+				supply = floor + " Supply";
+				ret = floor + " Return";
+			}
+		}
+	}
+
+	private void node(Model model, String name, double pressure, double temperature) {
+		model.add("Variable Liquid Node", prefix + name).put("Initial Pressure", pressure)
+				.put("Initial Temperature", temperature).put("Alpha", alpha);
+		variableNodes.add(prefix + name);
+	}
+
+	private void pump(Model model, String name, String inletNode, String outletNode, double nominalFlow, double nominalHead) {
+		model.add("Pump", prefix + name).put("Inlet Node", prefix + inletNode).put("Outlet Node", prefix + outletNode)
+				.put("Nominal Flow", nominalFlow).put("Nominal Head", nominalHead).put("Nominal Efficiency", 0.7)
+				.put("Motor Efficiency", 0.9).put("Controller", prefix + "Pump Speed");
+		elementCount++;
+	}
+
+	private ModelObjectData powerLaw(Model model, String type, String name, String inletNode, String outletNode,
+			double nominalFlow, double nominalPressureDrop) {
+		elementCount++;
+		return model.add(type, prefix + name).put("Inlet Node", prefix + inletNode).put("Outlet Node", prefix + outletNode)
+				.put("Nominal Flow", nominalFlow).put("Nominal Pressure Drop", nominalPressureDrop).put("Pressure Exponent", 2.0);
+	}
+
+}
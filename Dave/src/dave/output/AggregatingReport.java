@@ -0,0 +1,168 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.output;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import willie.output.Report;
+
+// Passes one row per reporting interval on to another report, every column aggregated as
+// Instantaneous, Mean, Min, Max or Integral (value times hours), set per object title.
+public class AggregatingReport implements Report {
+
+	private static final int INSTANTANEOUS = 0;
+	private static final int MEAN = 1;
+	private static final int MIN = 2;
+	private static final int MAX = 3;
+	private static final int INTEGRAL = 4;
+
+	private Report target;
+	private int intervalSteps;
+	private double dtHours;
+	private int defaultMode;
+	private HashMap<String, Integer> titleModes;
+	private String title;
+	private ArrayList<Integer> columnModes;
+	private boolean instantaneousOnly;
+	private int[] modes;
+	private double[] values;
+	private int column;
+	private int steps;
+	private int rows;
+
+	public AggregatingReport(Report target, int intervalSteps, double dtHours, String defaultMode) {
+		this.target = target;
+		this.intervalSteps = Math.max(1, intervalSteps);
+		this.dtHours = dtHours;
+		this.defaultMode = mode(defaultMode);
+		titleModes = new HashMap<String, Integer>();
+		columnModes = new ArrayList<Integer>();
+	}
+
+	public void setMode(String title, String mode) {
+		titleModes.put(title, mode(mode));
+	}
+
+	@Override
+	public void addTitle(String title, int columns) {
+		this.title = title;
+		target.addTitle(title, columns);
+	}
+
+	@Override
+	public void addDataHeader(String name, String unit) {
+		Integer mode = titleModes.get(title);
+		columnModes.add(mode == null ? defaultMode : mode);
+		target.addDataHeader(name, unit);
+	}
+
+	// Called once per step, true when the step's data should be put. Only the Columnar Report
+	// and Model ask, so a Willie text report still has every addData called each step.
+	public boolean collect() {
+		if (modes == null) {
+			start();
+		}
+		if (instantaneousOnly && steps < intervalSteps - 1) {
+			steps++;
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void putReal(double value) {
+		if (modes == null) {
+			start();
+		}
+		switch (modes[column]) {
+		case MEAN:
+			values[column] += value;
+			break;
+		case MIN:
+			values[column] = rows == 0 ? value : Math.min(values[column], value);
+			break;
+		case MAX:
+			values[column] = rows == 0 ? value : Math.max(values[column], value);
+			break;
+		case INTEGRAL:
+			values[column] += value * dtHours;
+			break;
+		default:
+			values[column] = value;
+		}
+		column++;
+		if (column == modes.length) {
+			column = 0;
+			rows++;
+			steps++;
+			if (steps == intervalSteps) {
+				writeRow();
+			}
+		}
+	}
+
+	// True when steps since the last row were skipped without being put, so the data of the last
+	// step has to be put before flush() can write them.
+	public boolean skipped() {
+		return steps > 0 && rows == 0;
+	}
+
+	// Writes the interval collected so far as a row of its own, for the end of a run.
+	public void flush() {
+		if (rows > 0) {
+			writeRow();
+		}
+	}
+
+	private void start() {
+		modes = new int[columnModes.size()];
+		instantaneousOnly = true;
+		for (int i = 0; i < modes.length; i++) {
+			modes[i] = columnModes.get(i);
+			instantaneousOnly &= modes[i] == INSTANTANEOUS;
+		}
+		values = new double[modes.length];
+	}
+
+	private void writeRow() {
+		for (int i = 0; i < modes.length; i++) {
+			target.putReal(modes[i] == MEAN ? values[i] / rows : values[i]);
+			values[i] = 0;
+		}
+		rows = 0;
+		steps = 0;
+	}
+
+	private static int mode(String mode) {
+		if (mode.equals("Instantaneous")) {
+			return INSTANTANEOUS;
+		} else if (mode.equals("Mean")) {
+			return MEAN;
+		} else if (mode.equals("Min")) {
+			return MIN;
+		} else if (mode.equals("Max")) {
+			return MAX;
+		} else if (mode.equals("Integral")) {
+			return INTEGRAL;
+		} else {
+			throw new IllegalArgumentException("Unknown aggregation " + mode + ".");
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.output;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+
+import dave.hydronic.ModelObject;
+import dave.hydronic.ObjectData;
+import dave.hydronic.ObjectReferences;
+import dave.hydronic.RequiresEndOfRun;
+import willie.core.ReportWriter;
+import willie.core.RequiresPostStepProcessing;
+import willie.core.RequiresTimeManager;
+import willie.core.TimeManager;
+import willie.core.WillieObject;
+import willie.output.Report;
+
+// Writes the listed objects to a columnar report, one row per reporting interval. It writes when
+// the run's reports take their data, once every step has been committed, so the run needs a
+// report taking data every step; the end of the run writes the last rows, and a run that is never ended, as a plain
+// Project.simulate, leaves them unwritten.
+public class ColumnarOutput
+		implements ModelObject, ReportWriter, RequiresPostStepProcessing, RequiresTimeManager, RequiresEndOfRun {
+
+	private String name;
+	private String fileName;
+	private int blockRows;
+	private double reportingInterval;
+	private ArrayList<ReportWriter> reportWriters;
+	private ArrayList<String> aggregations;
+	private TimeManager timeManager;
+	private ColumnarReport columnarReport;
+	private AggregatingReport report;
+	private boolean stepped;
+
+	public ColumnarOutput(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void read(ObjectData objectData, ObjectReferences objectReferences) {
+		fileName = objectData.getAlpha("File Name");
+		blockRows = (int) objectData.getReal("Block Rows");
+		reportingInterval = objectData.getReal("Reporting Interval");
+		reportWriters = new ArrayList<ReportWriter>();
+		aggregations = new ArrayList<String>();
+		for (int i = 0; i < objectData.size("Objects"); i++) {
+			reportWriters.add((ReportWriter) objectReferences.get(objectData.getAlpha("Objects", i)));
+			aggregations.add(objectData.getAlpha("Aggregation", i));
+		}
+	}
+
+	@Override
+	public void linkToTimeManager(TimeManager timeManager) {
+		this.timeManager = timeManager;
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public void processPostStep() {
+		stepped = true;
+	}
+
+	// Nothing goes to the run's reports, they only tell it when to write.
+	@Override
+	public void addHeader(Report runReport) {
+	}
+
+	// Every report of the run calls this, only the first after a step writes.
+	@Override
+	public void addData(Report runReport) {
+		if (!stepped) {
+			return;
+		}
+		stepped = false;
+		if (report == null) {
+			open();
+		}
+		if (!report.collect()) {
+			return;
+		}
+		for (ReportWriter reportWriter : reportWriters) {
+			reportWriter.addData(report);
+		}
+	}
+
+	@Override
+	public void endRun(boolean completed) {
+		if (completed && report == null && stepped) {
+			throw new IllegalStateException("Columnar report " + name + " was never written, the run has no report taking data.");
+		}
+		if (completed && report != null && report.skipped()) {
+			for (ReportWriter reportWriter : reportWriters) {
+				reportWriter.addData(report);
+			}
+		}
+		close();
+	}
+
+	// Writes the last interval even if it is not yet complete, then closes the report.
+	public void close() {
+		if (columnarReport != null) {
+			try {
+				report.flush();
+				columnarReport.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not close columnar report " + fileName + ".", e);
+			} finally {
+				columnarReport = null;
+			}
+		}
+	}
+
+	private void open() {
+		try {
+			columnarReport = new ColumnarReport(fileName, blockRows);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open columnar report " + fileName + ".", e);
+		}
+		// The reporting interval is in minutes
+		int intervalSteps = (int) Math.max(1, Math.round(reportingInterval * 60 / timeManager.dt()));
+		report = new AggregatingReport(columnarReport, intervalSteps, timeManager.dtHours(), "Instantaneous");
+		for (int i = 0; i < reportWriters.size(); i++) {
+			report.setMode(((WillieObject) reportWriters.get(i)).name(), aggregations.get(i));
+		}
+		for (ReportWriter reportWriter : reportWriters) {
+			reportWriter.addHeader(report);
+		}
+	}
+
+}
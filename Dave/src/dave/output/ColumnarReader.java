@@ -0,0 +1,234 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.output;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Reads a columnar report block by block, and exports it as CSV with the title, name and unit
+// of every column as the three header rows. A report whose run was never ended, as by a plain
+// Project.simulate, has no closing block and is missing the rows after its last full block.
+public class ColumnarReader {
+
+	private FileChannel channel;
+	private int columnCount;
+	private String[] titles;
+	private String[] names;
+	private String[] units;
+	private Inflater inflater;
+	private byte[] compressed;
+	private ByteBuffer values;
+	private double[] block;
+	private int rows;
+	private boolean closed;
+
+	// Arguments: columnar report file, CSV file.
+	public static void main(String[] args) throws IOException {
+		ColumnarReader reader = new ColumnarReader(args[0]);
+		PrintWriter out = new PrintWriter(args[1]);
+		reader.exportCsv(out);
+		out.close();
+		reader.close();
+		if (!reader.closed()) {
+			System.err.println(args[0] + " was not closed by its run, the rows after its last full block are missing.");
+		}
+	}
+
+	public ColumnarReader(String fileName) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		byte[] magic = new byte[ColumnarReport.MAGIC.length];
+		read(ByteBuffer.wrap(magic));
+		if (!Arrays.equals(magic, ColumnarReport.MAGIC)) {
+			throw new IOException(fileName + " is not a columnar report.");
+		}
+		columnCount = readInt();
+		titles = new String[columnCount];
+		names = new String[columnCount];
+		units = new String[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			titles[i] = readString();
+			names[i] = readString();
+			units[i] = readString();
+		}
+		inflater = new Inflater();
+		compressed = new byte[0];
+		block = new double[0];
+	}
+
+	public int columnCount() {
+		return columnCount;
+	}
+
+	public String title(int column) {
+		return titles[column];
+	}
+
+	public String name(int column) {
+		return names[column];
+	}
+
+	public String unit(int column) {
+		return units[column];
+	}
+
+	// Reads the next block, false at the end of the file. A block cut short by a run that
+	// did not close its report ends the file as well, and closed() then stays false.
+	public boolean nextBlock() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+		if (closed || !readFully(header)) {
+			rows = 0;
+			return false;
+		}
+		header.flip();
+		rows = header.getInt();
+		int length = header.getInt();
+		if (rows == 0) {
+			closed = true;
+			return false;
+		}
+		if (compressed.length < length) {
+			compressed = new byte[length];
+		}
+		if (!readFully(ByteBuffer.wrap(compressed, 0, length))) {
+			rows = 0;
+			return false;
+		}
+		int size = 8 * rows * columnCount;
+		if (values == null || values.capacity() < size) {
+			values = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		inflater.reset();
+		inflater.setInput(compressed, 0, length);
+		try {
+			int inflated = 0;
+			while (inflated < size) {
+				int count = inflater.inflate(values.array(), inflated, size - inflated);
+				if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+					throw new IOException("Columnar report block is shorter than its row count.");
+				}
+				inflated += count;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Columnar report block is corrupt.", e);
+		}
+		if (block.length < rows * columnCount) {
+			block = new double[rows * columnCount];
+		}
+		values.clear();
+		values.limit(size);
+		for (int c = 0; c < columnCount; c++) {
+			long previous = 0;
+			for (int r = 0; r < rows; r++) {
+				previous ^= values.getLong();
+				block[c * rows + r] = Double.longBitsToDouble(previous);
+			}
+		}
+		return true;
+	}
+
+	// True once the closing block has been read, which nextBlock() reaches after the last rows.
+	public boolean closed() {
+		return closed;
+	}
+
+	public int rows() {
+		return rows;
+	}
+
+	public double value(int row, int column) {
+		return block[column * rows + row];
+	}
+
+	public void exportCsv(PrintWriter out) throws IOException {
+		writeCsvRow(out, titles);
+		writeCsvRow(out, names);
+		writeCsvRow(out, units);
+		StringBuilder line = new StringBuilder();
+		while (nextBlock()) {
+			for (int r = 0; r < rows; r++) {
+				line.setLength(0);
+				for (int c = 0; c < columnCount; c++) {
+					if (c > 0) {
+						line.append(',');
+					}
+					line.append(value(r, c));
+				}
+				out.println(line);
+			}
+		}
+	}
+
+	public void close() throws IOException {
+		inflater.end();
+		channel.close();
+	}
+
+	private void writeCsvRow(PrintWriter out, String[] fields) {
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) {
+				line.append(',');
+			}
+			if (fields[i].contains(",") || fields[i].contains("\"")) {
+				line.append('"').append(fields[i].replace("\"", "\"\"")).append('"');
+			} else {
+				line.append(fields[i]);
+			}
+		}
+		out.println(line);
+	}
+
+	private String readString() throws IOException {
+		byte[] bytes = new byte[readInt()];
+		read(ByteBuffer.wrap(bytes));
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int readInt() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		read(buffer);
+		buffer.flip();
+		return buffer.getInt();
+	}
+
+	private void read(ByteBuffer buffer) throws IOException {
+		if (!readFully(buffer)) {
+			throw new EOFException("Columnar report ends inside its header.");
+		}
+	}
+
+	private boolean readFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
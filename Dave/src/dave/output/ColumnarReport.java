@@ -0,0 +1,194 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.output;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.Deflater;
+
+import willie.output.Report;
+
+// A report written as deflated blocks of binary columns. Each value is stored as the exclusive
+// or of its bits with the value above it, so slowly changing columns compress well.
+public class ColumnarReport implements Report {
+
+	static final byte[] MAGIC = "DAVECOL1".getBytes(StandardCharsets.US_ASCII);
+
+	private FileChannel channel;
+	private int blockRows;
+	private String title;
+	private ArrayList<String> titles;
+	private ArrayList<String> names;
+	private ArrayList<String> units;
+	private int columnCount;
+	private double[] block;
+	private int rows;
+	private int column;
+	private Deflater deflater;
+	private ByteBuffer values;
+	private byte[] compressed;
+	private ByteBuffer blockHeader;
+
+	public ColumnarReport(String fileName, int blockRows) throws IOException {
+		this.blockRows = Math.max(1, blockRows);
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		titles = new ArrayList<String>();
+		names = new ArrayList<String>();
+		units = new ArrayList<String>();
+		columnCount = -1;
+	}
+
+	@Override
+	public void addTitle(String title, int columns) {
+		checkSchemaOpen();
+		this.title = title;
+	}
+
+	@Override
+	public void addDataHeader(String name, String unit) {
+		checkSchemaOpen();
+		titles.add(title == null ? "" : title);
+		names.add(name);
+		units.add(unit);
+	}
+
+	@Override
+	public void putReal(double value) {
+		if (columnCount < 0) {
+			writeSchema();
+		}
+		block[column * blockRows + rows] = value;
+		column++;
+		if (column == columnCount) {
+			column = 0;
+			rows++;
+			if (rows == blockRows) {
+				writeBlock();
+			}
+		}
+	}
+
+	public int columnCount() {
+		return columnCount < 0 ? names.size() : columnCount;
+	}
+
+	// Writes the rows collected so far and an empty block that marks the file as closed. A partly
+	// written row is dropped.
+	public void close() throws IOException {
+		if (channel.isOpen()) {
+			if (columnCount < 0) {
+				writeSchema();
+			}
+			if (rows > 0) {
+				writeBlock();
+			}
+			blockHeader.clear();
+			blockHeader.putInt(0);
+			blockHeader.putInt(0);
+			blockHeader.flip();
+			write(blockHeader);
+			deflater.end();
+			channel.close();
+		}
+	}
+
+	private void checkSchemaOpen() {
+		if (columnCount >= 0) {
+			throw new IllegalStateException("Columns cannot be added to a columnar report after its first value.");
+		}
+	}
+
+	private void writeSchema() {
+		columnCount = names.size();
+		block = new double[columnCount * blockRows];
+		deflater = new Deflater(Deflater.BEST_SPEED);
+		values = ByteBuffer.allocate(8 * columnCount * blockRows).order(ByteOrder.LITTLE_ENDIAN);
+		compressed = new byte[Math.max(64, 8 * columnCount * blockRows + 1024)];
+		blockHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+		ArrayList<byte[]> strings = new ArrayList<byte[]>();
+		int size = MAGIC.length + 4;
+		for (int i = 0; i < columnCount; i++) {
+			for (String string : new String[] { titles.get(i), names.get(i), units.get(i) }) {
+				byte[] bytes = (string == null ? "" : string).getBytes(StandardCharsets.UTF_8);
+				strings.add(bytes);
+				size += 4 + bytes.length;
+			}
+		}
+		ByteBuffer schema = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		schema.put(MAGIC);
+		schema.putInt(columnCount);
+		for (byte[] bytes : strings) {
+			schema.putInt(bytes.length);
+			schema.put(bytes);
+		}
+		schema.flip();
+		write(schema);
+	}
+
+	private void writeBlock() {
+		values.clear();
+		for (int c = 0; c < columnCount; c++) {
+			int offset = c * blockRows;
+			long previous = 0;
+			for (int r = 0; r < rows; r++) {
+				long bits = Double.doubleToRawLongBits(block[offset + r]);
+				values.putLong(bits ^ previous);
+				previous = bits;
+			}
+		}
+		deflater.reset();
+		deflater.setInput(values.array(), 0, values.position());
+		deflater.finish();
+		int length = 0;
+		while (!deflater.finished()) {
+			if (length == compressed.length) {
+				byte[] larger = new byte[2 * compressed.length];
+				System.arraycopy(compressed, 0, larger, 0, length);
+				compressed = larger;
+			}
+			length += deflater.deflate(compressed, length, compressed.length - length);
+		}
+		blockHeader.clear();
+		blockHeader.putInt(rows);
+		blockHeader.putInt(length);
+		blockHeader.flip();
+		write(blockHeader);
+		write(ByteBuffer.wrap(compressed, 0, length));
+		rows = 0;
+	}
+
+	private void write(ByteBuffer buffer) {
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write columnar report.", e);
+		}
+	}
+
+}
@@ -0,0 +1,323 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.sweep;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import dave.batch.BatchResult;
+import dave.batch.BatchRunner;
+import dave.batch.RecordingFactory;
+import dave.hydronic.HydronicFactory;
+import dave.hydronic.LiquidElement;
+import dave.hydronic.LiquidNode;
+import dave.hydronic.ParameterOverrides;
+import willie.core.ElectricConsumer;
+import willie.core.ObjectFactory;
+import willie.core.WillieObject;
+
+// Runs one input file many times with numeric fields replaced by ParameterOverrides on a
+// bounded pool. A Project reads its own input file and cannot be cloned once read, so every
+// variant is read again, from a copy in its own directory beside the input so that its
+// outputs are kept apart. An override no object reads stops the variant at its first step.
+public class ParametricSweep {
+
+	private static final String[] quantities = { "Temperature", "Pressure", "Flow", "Electric Power" };
+
+	private String inputFile;
+	private int threads;
+	private ArrayList<String> objectNames;
+	private ArrayList<String> fields;
+	private ArrayList<double[]> variants;
+	private ArrayList<String> resultObjects;
+	private ArrayList<String> resultQuantities;
+	private File outputDirectory;
+
+	public ParametricSweep(String inputFile, int threads) {
+		this.inputFile = inputFile;
+		this.threads = threads;
+		objectNames = new ArrayList<String>();
+		fields = new ArrayList<String>();
+		variants = new ArrayList<double[]>();
+		resultObjects = new ArrayList<String>();
+		resultQuantities = new ArrayList<String>();
+		File input = new File(inputFile).getAbsoluteFile();
+		outputDirectory = new File(input.getParentFile(), stem(input.getName()) + "_sweep");
+	}
+
+	// List entries such as Toggle Points are addressed as "Toggle Points[1]".
+	public void addParameter(String objectName, String field) {
+		objectNames.add(objectName);
+		fields.add(field);
+	}
+
+	public int parameterCount() {
+		return fields.size();
+	}
+
+	// Adds a column with the value of a quantity at the end of each run: the Temperature or
+	// Pressure of a node, the Flow of an element or the Electric Power of a consumer.
+	public void addResult(String objectName, String quantity) {
+		if (!Arrays.asList(quantities).contains(quantity)) {
+			throw new IllegalArgumentException("Invalid result quantity: " + quantity + ". Must be one of "
+					+ Arrays.toString(quantities) + ".");
+		}
+		resultObjects.add(objectName);
+		resultQuantities.add(quantity);
+	}
+
+	public File outputDirectory() {
+		return outputDirectory;
+	}
+
+	public void addVariant(double... values) {
+		if (values.length != fields.size()) {
+			throw new IllegalArgumentException("Variant has " + values.length + " values for " + fields.size() + " parameters.");
+		}
+		variants.add(values.clone());
+	}
+
+	// Adds every combination of the given values, one array per parameter.
+	public void addGrid(double[]... values) {
+		if (values.length != fields.size()) {
+			throw new IllegalArgumentException("Grid has " + values.length + " value lists for " + fields.size() + " parameters.");
+		}
+		addGrid(values, new double[values.length], 0);
+	}
+
+	private void addGrid(double[][] values, double[] variant, int parameter) {
+		if (parameter == values.length) {
+			addVariant(variant);
+		} else {
+			for (double value : values[parameter]) {
+				variant[parameter] = value;
+				addGrid(values, variant, parameter + 1);
+			}
+		}
+	}
+
+	public ParameterOverrides overrides(double[] values) {
+		ParameterOverrides overrides = new ParameterOverrides();
+		for (int i = 0; i < values.length; i++) {
+			overrides.put(objectNames.get(i), fields.get(i), values[i]);
+		}
+		return overrides;
+	}
+
+	public ArrayList<SweepResult> run() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			ArrayList<Future<SweepResult>> futures = new ArrayList<Future<SweepResult>>();
+			for (int i = 0; i < variants.size(); i++) {
+				final int variant = i;
+				futures.add(executor.submit(new Callable<SweepResult>() {
+					@Override
+					public SweepResult call() throws IOException {
+						return runVariant(variant);
+					}
+				}));
+			}
+			ArrayList<SweepResult> results = new ArrayList<SweepResult>();
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					results.add(futures.get(i).get());
+				} catch (ExecutionException e) {
+					results.add(new SweepResult(variants.get(i), variantDirectory(i).getPath(), emptyResults(),
+							new BatchResult(inputFile, 0, 0, e.getCause())));
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private SweepResult runVariant(int variant) throws IOException {
+		File directory = variantDirectory(variant);
+		Files.createDirectories(directory.toPath());
+		File input = new File(inputFile);
+		File copy = new File(directory, input.getName());
+		Files.copy(input.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		ParameterOverrides overrides = overrides(variants.get(variant));
+		ArrayList<ObjectFactory> factories = new ArrayList<ObjectFactory>();
+		factories.add(new HydronicFactory(overrides));
+		RecordingFactory factory = new RecordingFactory(factories);
+		BatchResult run = BatchRunner.runFile(copy.getPath(), factory);
+		double[] results = run.succeeded() ? results(factory.objects()) : emptyResults();
+		return new SweepResult(variants.get(variant), directory.getPath(), results, run);
+	}
+
+	private File variantDirectory(int variant) {
+		return new File(outputDirectory, "variant" + (variant + 1));
+	}
+
+	private static String stem(String name) {
+		return name.endsWith(".in") ? name.substring(0, name.length() - 3) : name;
+	}
+
+	// The first column is the electric power of every consumer in the model, the others are
+	// the added results, NaN where the model has no such object.
+	private double[] results(ArrayList<WillieObject> objects) {
+		double[] results = emptyResults();
+		results[0] = 0;
+		for (WillieObject object : objects) {
+			if (object instanceof ElectricConsumer) {
+				results[0] += ((ElectricConsumer) object).electricPower();
+			}
+			for (int i = 0; i < resultObjects.size(); i++) {
+				if (object.name().equals(resultObjects.get(i))) {
+					results[i + 1] = result(object, resultQuantities.get(i));
+				}
+			}
+		}
+		return results;
+	}
+
+	private static double result(WillieObject object, String quantity) {
+		if (quantity.equals("Temperature") && object instanceof LiquidNode) {
+			return ((LiquidNode) object).temperature();
+		} else if (quantity.equals("Pressure") && object instanceof LiquidNode) {
+			return ((LiquidNode) object).pressure();
+		} else if (quantity.equals("Flow") && object instanceof LiquidElement) {
+			return ((LiquidElement) object).volumetricFlow();
+		} else if (quantity.equals("Electric Power") && object instanceof ElectricConsumer) {
+			return ((ElectricConsumer) object).electricPower();
+		} else {
+			return Double.NaN;
+		}
+	}
+
+	private double[] emptyResults() {
+		double[] results = new double[resultObjects.size() + 1];
+		Arrays.fill(results, Double.NaN);
+		return results;
+	}
+
+	public void printTable(ArrayList<SweepResult> results) {
+		StringBuilder header = new StringBuilder();
+		for (int i = 0; i < fields.size(); i++) {
+			header.append(String.format("%-24s ", objectNames.get(i) + ": " + fields.get(i)));
+		}
+		header.append(String.format("%-8s %12s %12s ", "Status", "Wall [s]", "Steps"));
+		header.append(String.format("%16s ", "Electric [kW]"));
+		for (int i = 0; i < resultObjects.size(); i++) {
+			header.append(String.format("%24s ", resultObjects.get(i) + ": " + resultQuantities.get(i)));
+		}
+		header.append(" Outputs");
+		System.out.println(header);
+		for (SweepResult result : results) {
+			StringBuilder row = new StringBuilder();
+			for (double value : result.values()) {
+				row.append(String.format("%-24s ", value));
+			}
+			BatchResult run = result.run();
+			row.append(String.format("%-8s %12.3f %12d ", run.succeeded() ? "OK" : "FAILED", run.wallSeconds(), run.steps()));
+			row.append(String.format("%16.6g ", result.results()[0]));
+			for (int i = 1; i < result.results().length; i++) {
+				row.append(String.format("%24.6g ", result.results()[i]));
+			}
+			row.append(" ").append(result.outputDirectory());
+			System.out.println(row);
+			if (!run.succeeded()) {
+				System.out.println("    " + run.failure());
+			}
+		}
+	}
+
+	// The sweep file has a first line of Grid or List followed by one line per parameter:
+	// object name, field and values separated by tabs. Grid runs every combination of the
+	// values, List runs the n-th value of every parameter together. Lines of Result, object
+	// name and quantity add result columns.
+	public static ParametricSweep read(String inputFile, String sweepFile, int threads) throws IOException {
+		ParametricSweep sweep = new ParametricSweep(inputFile, threads);
+		ArrayList<double[]> values = new ArrayList<double[]>();
+		String mode = null;
+		BufferedReader reader = new BufferedReader(new FileReader(sweepFile));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().length() == 0 || line.trim().startsWith("#")) {
+					continue;
+				}
+				if (mode == null) {
+					mode = line.trim();
+					continue;
+				}
+				String[] columns = line.split("\t");
+				if (columns[0].trim().equals("Result")) {
+					sweep.addResult(columns[1].trim(), columns[2].trim());
+					continue;
+				}
+				sweep.addParameter(columns[0].trim(), columns[1].trim());
+				double[] parameterValues = new double[columns.length - 2];
+				for (int i = 2; i < columns.length; i++) {
+					parameterValues[i - 2] = Double.parseDouble(columns[i].trim());
+				}
+				values.add(parameterValues);
+			}
+		} finally {
+			reader.close();
+		}
+
+		if ("Grid".equals(mode)) {
+			sweep.addGrid(values.toArray(new double[values.size()][]));
+		} else if ("List".equals(mode)) {
+			int count = values.isEmpty() ? 0 : values.get(0).length;
+			for (int p = 1; p < values.size(); p++) {
+				if (values.get(p).length != count) {
+					throw new IOException("List sweep parameter " + sweep.objectNames.get(p) + ": " + sweep.fields.get(p) + " has "
+							+ values.get(p).length + " values, the first parameter has " + count + ".");
+				}
+			}
+			for (int v = 0; v < count; v++) {
+				double[] variant = new double[values.size()];
+				for (int p = 0; p < values.size(); p++) {
+					variant[p] = values.get(p)[v];
+				}
+				sweep.addVariant(variant);
+			}
+		} else {
+			throw new IOException("Sweep file must start with Grid or List.");
+		}
+		return sweep;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 2) {
+			System.out.println("USAGE: ParametricSweep <input file> <sweep file> [threads]");
+			return;
+		}
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		ParametricSweep sweep = read(args[0], args[1], threads);
+		ArrayList<SweepResult> results = sweep.run();
+		System.out.println("Variant outputs are in " + sweep.outputDirectory());
+		sweep.printTable(results);
+	}
+
+}
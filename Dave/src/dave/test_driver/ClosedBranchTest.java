@@ -0,0 +1,90 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.test_driver;
+
+import dave.hydronic.LiquidElement;
+import dave.hydronic.LiquidNode;
+import dave.model.Model;
+import willie.core.WillieObject;
+
+// Runs a loop with a branch shut off by a closed valve at each end, leaving the node between
+// them without any flow path, and checks that every state and flow stays finite.
+public class ClosedBranchTest {
+
+	public static void main(String[] args) {
+		for (String pressureSolver : new String[] { "Explicit", "Implicit", "Algebraic" }) {
+			runTest(pressureSolver);
+		}
+		System.out.println("ITS OVER!");
+	}
+
+	private static void runTest(String pressureSolver) {
+		System.out.println("RUNNING TEST closed branch, " + pressureSolver);
+		Model model = Model.hydronicModel(1.0 / 3600, 65);
+		model.add("Constant Controller", "Pump Speed").put("Output", 1.0);
+		model.add("Constant Controller", "Open").put("Output", 1.0);
+		model.add("Constant Controller", "Closed").put("Output", 0.0);
+		model.add("Constant Pressure Liquid Node", "Tank").put("Pressure", 10.0).put("Initial Temperature", 55.0);
+		node(model, "Pump Outlet", 40.0);
+		node(model, "Open Branch", 25.0);
+		node(model, "Closed Branch", 25.0);
+		model.add("Pump", "Pump").put("Inlet Node", "Tank").put("Outlet Node", "Pump Outlet").put("Nominal Flow", 100.0)
+				.put("Nominal Head", 40.0).put("Nominal Efficiency", 0.7).put("Motor Efficiency", 0.9).put("Controller", "Pump Speed");
+		valve(model, "Open Valve", "Pump Outlet", "Open Branch", "Open");
+		model.add("Pipe", "Open Pipe").put("Inlet Node", "Open Branch").put("Outlet Node", "Tank").put("Nominal Flow", 100.0)
+				.put("Nominal Pressure Drop", 10.0).put("Pressure Exponent", 2.0).put("UA", 0.0).put("Environment Temperature", 75.0);
+		valve(model, "Closed Supply Valve", "Pump Outlet", "Closed Branch", "Closed");
+		valve(model, "Closed Return Valve", "Closed Branch", "Tank", "Closed");
+		model.add("Hydronic Network", "Network").put("Nodes", "Pump Outlet", "Open Branch", "Closed Branch")
+				.put("Pressure Solver", pressureSolver).put("Max Iterations", 20.0).put("Tolerance", 1.0E-6)
+				.put("Threads", 1.0).put("Hydraulic Substeps", 1.0);
+		model.read();
+		for (int i = 0; i < 600; i++) {
+			model.step();
+		}
+		model.endRun();
+
+		for (WillieObject object : model.objects()) {
+			if (object instanceof LiquidNode) {
+				LiquidNode node = (LiquidNode) object;
+				check(object.name() + " pressure", node.pressure());
+				check(object.name() + " temperature", node.temperature());
+			} else if (object instanceof LiquidElement) {
+				check(object.name() + " flow", ((LiquidElement) object).volumetricFlow());
+			}
+		}
+		System.out.println("Open Pipe flow " + ((LiquidElement) model.get("Open Pipe")).volumetricFlow()
+				+ ", Closed Return Valve flow " + ((LiquidElement) model.get("Closed Return Valve")).volumetricFlow());
+	}
+
+	private static void node(Model model, String name, double pressure) {
+		model.add("Variable Liquid Node", name).put("Initial Pressure", pressure).put("Initial Temperature", 55.0).put("Alpha", 1.0);
+	}
+
+	private static void valve(Model model, String name, String inletNode, String outletNode, String controller) {
+		model.add("Two Way Valve", name).put("Inlet Node", inletNode).put("Outlet Node", outletNode).put("Nominal Flow", 100.0)
+				.put("Nominal Pressure Drop", 10.0).put("Pressure Exponent", 2.0).put("Controller", controller);
+	}
+
+	private static void check(String quantity, double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new IllegalStateException(quantity + " is " + value + ".");
+		}
+	}
+
+}
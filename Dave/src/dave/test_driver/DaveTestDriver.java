@@ -20,7 +20,10 @@ package dave.test_driver;
 import java.io.IOException;
 import java.util.ArrayList;
 
+import dave.batch.RecordingFactory;
+import dave.hydronic.EndOfRun;
 import dave.hydronic.HydronicFactory;
+import dave.hydronic.Instrumentation;
 import willie.core.ConsoleSimulationUpdateListener;
 import willie.core.ObjectFactory;
 import willie.core.Project;
@@ -33,12 +36,27 @@ public class DaveTestDriver {
 	
 	private static void runTest(String fileName) throws IOException{
 			System.out.println("RUNNING TEST " + fileName);
+			ArrayList<ObjectFactory> modelFactories = new ArrayList<ObjectFactory>();
+			modelFactories.add(new HydronicFactory());
+			RecordingFactory factory = new RecordingFactory(modelFactories);
 			ArrayList<ObjectFactory> factories = new ArrayList<ObjectFactory>();
-			factories.add(new HydronicFactory());
+			factories.add(factory);
 			
+			if (Instrumentation.ENABLED) {
+				Instrumentation.startRun();
+			}
 			Project project = new Project(factories);
 			project.addSimulationUpdateListener(new ConsoleSimulationUpdateListener());
-			project.simulate(fileName);
+			boolean completed = false;
+			try {
+				project.simulate(fileName);
+				completed = true;
+			} finally {
+				EndOfRun.endRun(factory.objects(), completed);
+			}
+			if (Instrumentation.ENABLED) {
+				Instrumentation.printSummary();
+			}
 			System.out.println("ITS OVER!");
 	}
 
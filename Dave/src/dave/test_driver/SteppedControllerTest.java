@@ -0,0 +1,105 @@
+/*
+ *
+ *  Copyright (C) 2017 Aaron Powers
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package dave.test_driver;
+
+import dave.hydronic.LiquidNode;
+import dave.model.ConstantController;
+import dave.model.Model;
+import willie.core.WillieObject;
+import willie.output.Report;
+
+// Steps a valve's controller partway through a run and checks that a model whose reports
+// read every flow after each step follows it exactly like one without reports, so a flow
+// a report evaluated after the commit is never reused in the next step.
+public class SteppedControllerTest {
+
+	public static void main(String[] args) {
+		runTest("Nodes", null);
+		for (String pressureSolver : new String[] { "Explicit", "Implicit", "Algebraic" }) {
+			runTest("Network", pressureSolver);
+		}
+		System.out.println("ITS OVER!");
+	}
+
+	private static void runTest(String mode, String pressureSolver) {
+		System.out.println("RUNNING TEST stepped controller, " + mode + (pressureSolver == null ? "" : ", " + pressureSolver));
+		Model reported = model(pressureSolver);
+		Model unreported = model(pressureSolver);
+		reported.addReport(new Report() {
+			@Override
+			public void addTitle(String title, int columns) {
+			}
+
+			@Override
+			public void addDataHeader(String name, String unit) {
+			}
+
+			@Override
+			public void putReal(double value) {
+			}
+		});
+		for (int i = 0; i < 600; i++) {
+			if (i == 300) {
+				((ConstantController) reported.get("Valve Position")).setOutput(0.3);
+				((ConstantController) unreported.get("Valve Position")).setOutput(0.3);
+			}
+			reported.step();
+			unreported.step();
+			compare(reported, unreported, i);
+		}
+		reported.endRun();
+		unreported.endRun();
+	}
+
+	private static Model model(String pressureSolver) {
+		Model model = Model.hydronicModel(1.0 / 3600, 65);
+		model.add("Constant Controller", "Pump Speed").put("Output", 1.0);
+		model.add("Constant Controller", "Valve Position").put("Output", 1.0);
+		model.add("Constant Pressure Liquid Node", "Tank").put("Pressure", 10.0).put("Initial Temperature", 55.0);
+		model.add("Variable Liquid Node", "Pump Outlet").put("Initial Pressure", 40.0).put("Initial Temperature", 55.0)
+				.put("Alpha", 1.0);
+		model.add("Pump", "Pump").put("Inlet Node", "Tank").put("Outlet Node", "Pump Outlet").put("Nominal Flow", 100.0)
+				.put("Nominal Head", 40.0).put("Nominal Efficiency", 0.7).put("Motor Efficiency", 0.9).put("Controller", "Pump Speed");
+		model.add("Two Way Valve", "Valve").put("Inlet Node", "Pump Outlet").put("Outlet Node", "Tank").put("Nominal Flow", 100.0)
+				.put("Nominal Pressure Drop", 30.0).put("Pressure Exponent", 2.0).put("Controller", "Valve Position");
+		if (pressureSolver != null) {
+			model.add("Hydronic Network", "Network").put("Nodes", "Pump Outlet").put("Pressure Solver", pressureSolver)
+					.put("Max Iterations", 20.0).put("Tolerance", 1.0E-6).put("Threads", 1.0).put("Hydraulic Substeps", 1.0);
+			model.add("Quiescence Monitor", "Monitor").put("Network", "Network").put("Temperature Tolerance", 1.0E-6)
+					.put("Pressure Tolerance", 1.0E-6).put("Opening Tolerance", 1.0E-6).put("Heat Gain Tolerance", 1.0E-6);
+		}
+		model.read();
+		return model;
+	}
+
+	private static void compare(Model reported, Model unreported, int step) {
+		for (WillieObject object : reported.objects()) {
+			if (object instanceof LiquidNode) {
+				LiquidNode node = (LiquidNode) object;
+				LiquidNode other = (LiquidNode) unreported.get(object.name());
+				if (Double.doubleToLongBits(node.pressure()) != Double.doubleToLongBits(other.pressure())
+						|| Double.doubleToLongBits(node.temperature()) != Double.doubleToLongBits(other.temperature())) {
+					throw new IllegalStateException(object.name() + " differs at step " + step + ": " + node.pressure() + " Ft. "
+							+ node.temperature() + " Deg-F with reports, " + other.pressure() + " Ft. " + other.temperature()
+							+ " Deg-F without.");
+				}
+			}
+		}
+	}
+
+}